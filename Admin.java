@@ -1,4 +1,5 @@
 @Entity 
+@Table(indexes = @Index(name = "idx_admin_username", columnList = "username", unique = true))
 class Admin {
   
     @Id 
@@ -1,6 +1,13 @@
 import java.time.LocalDateTime;
 
 @Entity
+@Table(name = "appointment", uniqueConstraints = @UniqueConstraint(
+        name = "uk_appointments_doctor_time",
+        columnNames = {"doctor_id", "appointment_time"}),
+       indexes = {
+        @Index(name = "idx_appointment_patient_status_time", columnList = "patient_id, status, appointment_time"),
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time")
+})
 public class Appointment {
   
     @Id
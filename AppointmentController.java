@@ -1,5 +1,6 @@
 package com.example.controller;
 
+import com.example.dto.BookingCheck;
 import com.example.model.Appointment;
 import com.example.service.AppointmentService;
 import com.example.service.Service; // your central validation/service class
@@ -9,12 +10,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/appointments")
 public class AppointmentController {
 
+    // Upper bound for one status change request (a full day's close-out)
+    private static final int MAX_STATUS_BATCH = 500;
+
     private final AppointmentService appointmentService;
     private final Service service;
 
@@ -66,8 +74,9 @@ public class AppointmentController {
             return validation;
         }
 
-        // validate appointment slot
-        int check = service.validateAppointment(appointment);
+        // validate doctor, patient and slot in one query; the result is reused for the booking
+        Optional<BookingCheck> bookingCheck = service.checkBooking(appointment);
+        int check = service.validateAppointment(appointment, bookingCheck);
         if (check == -1) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("message", "Doctor not found."));
@@ -77,11 +86,16 @@ public class AppointmentController {
                     .body(Map.of("message", "Selected time is unavailable."));
         }
 
-        int saved = appointmentService.bookAppointment(appointment);
+        int saved = appointmentService.bookAppointment(appointment, bookingCheck);
         if (saved == 1) {
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(Map.of("message", "Appointment booked successfully."));
         }
+        if (saved == -1) {
+            // lost the race for the slot to a concurrent booking
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Selected time is unavailable."));
+        }
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("message", "Failed to book appointment."));
     }
@@ -102,6 +116,40 @@ public class AppointmentController {
         return appointmentService.updateAppointment(appointment);
     }
 
+    /**
+     * PUT /appointments/status/{status}/{token}?ids=1,2,3
+     * Doctors change the status of one or many of their appointments (0 = scheduled, 1 = completed).
+     * Cancelling is not a status change: use DELETE /appointments/{id}/{token}, which frees the slot.
+     * Accepted once durably queued; the database is updated in the background within a second.
+     */
+    @PutMapping("/status/{status}/{token}")
+    public ResponseEntity<Map<String, String>> changeStatus(@PathVariable int status,
+                                                            @PathVariable String token,
+                                                            @RequestParam List<Long> ids) {
+        // validate token for doctor
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "doctor");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+
+        Set<Long> appointmentIds = new LinkedHashSet<>(ids);
+        if (appointmentIds.isEmpty() || appointmentIds.size() > MAX_STATUS_BATCH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + MAX_STATUS_BATCH + " appointment ids."));
+        }
+
+        int result = appointmentService.changeStatus(appointmentIds, status, token);
+        if (result == 1) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("message", "Status update queued."));
+        }
+        if (result == -1) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid status."));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to update status."));
+    }
+
     /**
      * DELETE /appointments/{id}/{token}
      * Patients cancel their appointment.
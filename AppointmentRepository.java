@@ -1,6 +1,8 @@
 package com.example.repository;
 
+import com.example.dto.AppointmentDTO;
 import com.example.model.Appointment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,43 +11,44 @@ import org.springframework.stereotype.Repository;
 
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    // 1) Retrieve appointments for a doctor within a time range, loading doctor + availability
+    // Queries are numbered in file order. Time ranges are half-open:
+    // appointmentTime >= :start AND appointmentTime < :end.
+
+    // 1) A doctor's appointments in [start, end), for display (DoctorAgenda).
+    //    Doctor and patient come in the same statement (entity graph); the doctor's availability
+    //    collection is not joined, so there is exactly one row per appointment.
+    @EntityGraph(attributePaths = {"doctor", "patient"})
     @Query("""
            SELECT a
            FROM Appointment a
-           LEFT JOIN FETCH a.doctor d
-           LEFT JOIN FETCH d.availability av
-           WHERE d.id = :doctorId
-             AND a.appointmentTime BETWEEN :start AND :end
+           WHERE a.doctor.id = :doctorId
+             AND a.appointmentTime >= :start
+             AND a.appointmentTime < :end
            ORDER BY a.appointmentTime ASC
            """)
     List<Appointment> findByDoctorIdAndAppointmentTimeBetween(@Param("doctorId") Long doctorId,
                                                               @Param("start") LocalDateTime start,
                                                               @Param("end") LocalDateTime end);
 
-    // 2) Filter by doctor ID, partial patient name (case-insensitive), and time range
-    //    Load patient + doctor details
+    // 2) Booked times only, for slot computation (DoctorSlotIndex, single doctor):
+    //    one column, one row per appointment, no entities
     @Query("""
-           SELECT a
+           SELECT a.appointmentTime
            FROM Appointment a
-           LEFT JOIN FETCH a.patient p
-           LEFT JOIN FETCH a.doctor d
-           WHERE d.id = :doctorId
-             AND LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%'))
-             AND a.appointmentTime BETWEEN :start AND :end
+           WHERE a.doctor.id = :doctorId
+             AND a.appointmentTime >= :start
+             AND a.appointmentTime < :end
            ORDER BY a.appointmentTime ASC
            """)
-    List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-            @Param("doctorId") Long doctorId,
-            @Param("patientName") String patientName,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end
-    );
+    List<LocalDateTime> findAppointmentTimesByDoctorIdBetween(@Param("doctorId") Long doctorId,
+                                                              @Param("start") LocalDateTime start,
+                                                              @Param("end") LocalDateTime end);
 
     // 3) Delete all appointments for a specific doctor
     @Modifying
@@ -53,38 +56,118 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
     void deleteAllByDoctorId(@Param("doctorId") Long doctorId);
 
+    // Patient queries 4-7, 9 and 10 project straight into AppointmentDTO (one SQL statement,
+    // no managed entities, no lazy doctor/patient loads).
+
     // 4) Find all appointments for a specific patient
-    //    (Use explicit JPQL to support relation-based patient.id)
-    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId ORDER BY a.appointmentTime ASC")
-    List<Appointment> findByPatientId(@Param("patientId") Long patientId);
+    @Query("""
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
+           FROM Appointment a
+           JOIN a.doctor d
+           JOIN a.patient p
+           WHERE p.id = :patientId
+           ORDER BY a.appointmentTime ASC
+           """)
+    List<AppointmentDTO> findByPatientId(@Param("patientId") Long patientId);
 
     // 5) Retrieve appointments for a patient by status, ordered by appointment time
-    List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    @Query("""
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
+           FROM Appointment a
+           JOIN a.doctor d
+           JOIN a.patient p
+           WHERE p.id = :patientId
+             AND a.status = :status
+           ORDER BY a.appointmentTime ASC
+           """)
+    List<AppointmentDTO> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(@Param("patientId") Long patientId,
+                                                                            @Param("status") int status);
 
     // 6) Case-insensitive partial doctor name + patient id
     @Query("""
-           SELECT a
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
            FROM Appointment a
            JOIN a.doctor d
-           WHERE a.patient.id = :patientId
+           JOIN a.patient p
+           WHERE p.id = :patientId
              AND LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%'))
            ORDER BY a.appointmentTime ASC
            """)
-    List<Appointment> filterByDoctorNameAndPatientId(@Param("doctorName") String doctorName,
+    List<AppointmentDTO> filterByDoctorNameAndPatientId(@Param("doctorName") String doctorName,
                                                      @Param("patientId") Long patientId);
 
     // 7) Case-insensitive partial doctor name + patient id + status
     @Query("""
-           SELECT a
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
            FROM Appointment a
            JOIN a.doctor d
-           WHERE a.patient.id = :patientId
+           JOIN a.patient p
+           WHERE p.id = :patientId
              AND a.status = :status
              AND LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%'))
            ORDER BY a.appointmentTime ASC
            """)
-    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(@Param("doctorName") String doctorName,
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(@Param("doctorName") String doctorName,
                                                               @Param("patientId") Long patientId,
                                                               @Param("status") int status);
-}
 
+    // 8) Booked times for many doctors over [start, end), grouped by doctor in one query (DoctorSlotIndex)
+    //    Each row is { doctorId (Long), appointmentTime (LocalDateTime) }
+    @Query("""
+           SELECT a.doctor.id, a.appointmentTime
+           FROM Appointment a
+           WHERE a.doctor.id IN :doctorIds
+             AND a.appointmentTime >= :start
+             AND a.appointmentTime < :end
+           ORDER BY a.doctor.id, a.appointmentTime
+           """)
+    List<Object[]> findBookedTimesByDoctorIdsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+                                                     @Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end);
+
+    // 9) Patient's appointments with any of the given doctors (ids resolved by the name index)
+    @Query("""
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
+           FROM Appointment a
+           JOIN a.doctor d
+           JOIN a.patient p
+           WHERE p.id = :patientId
+             AND d.id IN :doctorIds
+           ORDER BY a.appointmentTime ASC
+           """)
+    List<AppointmentDTO> findByPatientIdAndDoctorIdIn(@Param("patientId") Long patientId,
+                                                   @Param("doctorIds") Collection<Long> doctorIds);
+
+    // 10) Same as 9) restricted to one status
+    @Query("""
+           SELECT new com.example.dto.AppointmentDTO(
+                      a.id, d.id, d.name,
+                      p.id, p.name, p.email, p.phone, p.address,
+                      a.appointmentTime, a.status)
+           FROM Appointment a
+           JOIN a.doctor d
+           JOIN a.patient p
+           WHERE p.id = :patientId
+             AND a.status = :status
+             AND d.id IN :doctorIds
+           ORDER BY a.appointmentTime ASC
+           """)
+    List<AppointmentDTO> findByPatientIdAndStatusAndDoctorIdIn(@Param("patientId") Long patientId,
+                                                            @Param("status") int status,
+                                                            @Param("doctorIds") Collection<Long> doctorIds);
+}
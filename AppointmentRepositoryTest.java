@@ -0,0 +1,116 @@
+package com.example.repository;
+
+import com.example.model.Appointment;
+import com.example.model.Doctor;
+import com.example.model.Patient;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Rows transferred and statements issued by the lean doctor/day queries (1 and 2).
+ * A doctor with many availability slots must not multiply the appointment rows.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AppointmentRepositoryTest {
+
+    private static final int SLOTS = 30;
+    private static final int APPOINTMENTS = 5;
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 15);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private Statistics stats;
+    private Long doctorId;
+
+    @BeforeEach
+    void setUp() {
+        List<String> availability = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            availability.add(String.format("%02d:%02d", 8 + i / 4, (i % 4) * 15));
+        }
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr Busy");
+        doctor.setSpeciality("Cardiology");
+        doctor.setEmail("busy@example.com");
+        doctor.setPassword("secret");
+        doctor.setPhone("0123456789");
+        doctor.setAvailableTimes(availability);
+        em.persist(doctor);
+
+        Patient patient = new Patient();
+        patient.setName("Pat");
+        patient.setEmail("pat@example.com");
+        patient.setPassword("secret");
+        patient.setPhone("0123456789");
+        patient.setAddress("1 Main St");
+        em.persist(patient);
+
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Appointment a = new Appointment();
+            a.setDoctor(doctor);
+            a.setPatient(patient);
+            a.setAppointmentTime(DAY.atTime(9 + i, 0));
+            a.setStatus(0);
+            em.persist(a);
+        }
+        // Outside the half-open range: the next day's midnight slot
+        Appointment next = new Appointment();
+        next.setDoctor(doctor);
+        next.setPatient(patient);
+        next.setAppointmentTime(DAY.plusDays(1).atStartOfDay());
+        next.setStatus(0);
+        em.persist(next);
+
+        em.flush();
+        em.clear();
+        doctorId = doctor.getId();
+
+        stats = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void displayVariantLoadsOneRowPerAppointmentInOneStatement() {
+        List<Appointment> day = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
+                doctorId, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        assertEquals(APPOINTMENTS, day.size());
+        assertEquals(1, stats.getPrepareStatementCount());
+        // Appointments plus one doctor and one patient; the availability collection is not fetched
+        assertEquals(APPOINTMENTS + 2, stats.getEntityLoadCount());
+        assertEquals(0, stats.getCollectionLoadCount());
+        assertFalse(em.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil()
+                      .isLoaded(day.get(0).getDoctor(), "availableTimes"));
+    }
+
+    @Test
+    void timeOnlyVariantTransfersOneColumnAndNoEntities() {
+        List<LocalDateTime> times = appointmentRepository.findAppointmentTimesByDoctorIdBetween(
+                doctorId, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        assertEquals(APPOINTMENTS, times.size());
+        assertEquals(DAY.atTime(9, 0), times.get(0));
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityLoadCount());
+        assertEquals(0, stats.getCollectionLoadCount());
+    }
+}
@@ -1,20 +1,24 @@
 package com.example.service;
 
+import com.example.dto.BookingCheck;
 import com.example.model.Appointment;
 import com.example.model.Doctor;
-import com.example.model.Patient;
 import com.example.repository.AppointmentRepository;
 import com.example.repository.DoctorRepository;
 import com.example.repository.PatientRepository;
 import com.example.security.TokenService; // adjust package as needed
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Service
 public class AppointmentService {
@@ -23,29 +27,83 @@ public class AppointmentService {
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final TokenService tokenService;
+    private final DoctorSlotIndex slotIndex;
+    private final BookingLocks bookingLocks;
+    private final DoctorAgenda agenda;
+    private final DirectoryCache directoryCache;
+    private final AppointmentStatusQueue statusQueue;
+    private final SlotEventHub slotEvents;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
                               PatientRepository patientRepository,
                               DoctorRepository doctorRepository,
-                              TokenService tokenService) {
+                              TokenService tokenService,
+                              DoctorSlotIndex slotIndex,
+                              BookingLocks bookingLocks,
+                              DoctorAgenda agenda,
+                              DirectoryCache directoryCache,
+                              AppointmentStatusQueue statusQueue,
+                              SlotEventHub slotEvents) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.tokenService = tokenService;
+        this.slotIndex = slotIndex;
+        this.bookingLocks = bookingLocks;
+        this.agenda = agenda;
+        this.directoryCache = directoryCache;
+        this.statusQueue = statusQueue;
+        this.slotEvents = slotEvents;
     }
 
     /**
      * Books a new appointment.
-     * @return 1 on success, 0 on failure
+     * Bookings for the same doctor and day are serialized and pre-checked against DoctorSlotIndex
+     * under that lock; a slot the index believes taken is re-read from the database before the
+     * booking is refused. The unique (doctor_id, appointment_time) constraint has the final word,
+     * including against other instances.
+     * @return 1 on success, 0 on failure, -1 if the slot is already taken
      */
     public int bookAppointment(Appointment appointment) {
+        return book(appointment, () -> validateAppointment(appointment));
+    }
+
+    /**
+     * Same as above, reusing the Service.checkBooking result of the request.
+     */
+    public int bookAppointment(Appointment appointment, Optional<BookingCheck> check) {
+        Objects.requireNonNull(check, "check");
+        return book(appointment, () -> validateAppointment(appointment, check));
+    }
+
+    private int book(Appointment appointment, Supplier<Map<String, String>> validation) {
         try {
-            // Basic validation (extend as needed)
-            Map<String, String> errors = validateAppointment(appointment);
+            Map<String, String> errors = validation.get();
             if (!errors.isEmpty()) return 0;
 
-            appointmentRepository.save(appointment);
-            return 1;
+            Long doctorId = appointment.getDoctor().getId();
+            LocalDateTime time = appointment.getAppointmentTime();
+
+            Lock lock = bookingLocks.lockFor(doctorId, time.toLocalDate());
+            lock.lock();
+            try {
+                if (slotIndex.isBooked(doctorId, time) && slotIndex.isBookedInDatabase(doctorId, time)) return -1;
+
+                Appointment saved;
+                try {
+                    saved = appointmentRepository.save(appointment);
+                } catch (DataIntegrityViolationException e) {
+                    // Unique (doctor_id, appointment_time): taken where the index couldn't see it
+                    slotIndex.evictDay(doctorId, time.toLocalDate());
+                    return -1;
+                }
+                slotIndex.markBooked(doctorId, time);
+                slotEvents.slotTaken(doctorId, time);
+                agenda.added(saved.getId(), doctorId, patientIdOf(saved), time, saved.getStatus());
+                return 1;
+            } finally {
+                lock.unlock();
+            }
         } catch (Exception e) {
             return 0;
         }
@@ -71,8 +129,47 @@ public class AppointmentService {
                         return ResponseEntity.badRequest().body(body);
                     }
 
-                    // Persist update
-                    appointmentRepository.save(appointment);
+                    // Remember the old slot before it is overwritten
+                    Long oldDoctorId = existing.getDoctor() != null ? existing.getDoctor().getId() : null;
+                    LocalDateTime oldTime = existing.getAppointmentTime();
+
+                    Long doctorId = appointment.getDoctor().getId();
+                    LocalDateTime time = appointment.getAppointmentTime();
+                    boolean sameSlot = Objects.equals(oldDoctorId, doctorId) && Objects.equals(oldTime, time);
+
+                    // Persist update (moving to a new slot follows the same rules as booking).
+                    // Both the old and the new (doctor, day) are locked, in a fixed order, so a move
+                    // can't race a booking into the old slot or the old day's index / agenda updates.
+                    List<? extends Lock> locks = bookingLocks.locksFor(
+                            oldDoctorId, oldTime != null ? oldTime.toLocalDate() : null, doctorId, time.toLocalDate());
+                    locks.forEach(Lock::lock);
+                    try {
+                        if (!sameSlot && slotIndex.isBooked(doctorId, time)
+                                && slotIndex.isBookedInDatabase(doctorId, time)) {
+                            body.put("message", "Selected time is unavailable.");
+                            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+                        }
+                        // The update carries its own status; a queued one must not land on top of it
+                        statusQueue.discard(appointment.getId());
+                        Appointment saved = appointmentRepository.save(appointment);
+                        slotIndex.markReleased(oldDoctorId, oldTime);
+                        slotIndex.markBooked(doctorId, time);
+                        agenda.removed(saved.getId(), oldDoctorId, oldTime);
+                        agenda.added(saved.getId(), doctorId, patientIdOf(saved), time, saved.getStatus());
+                        if (!sameSlot) {
+                            slotEvents.slotReleased(oldDoctorId, oldTime);
+                            slotEvents.slotTaken(doctorId, time);
+                        }
+                    } catch (DataIntegrityViolationException e) {
+                        slotIndex.evictDay(doctorId, time.toLocalDate());
+                        body.put("message", "Selected time is unavailable.");
+                        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+                    } catch (IOException e) {
+                        body.put("message", "Failed to update appointment.");
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+                    } finally {
+                        for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+                    }
                     body.put("message", "Appointment updated successfully.");
                     return ResponseEntity.ok(body);
                 })
@@ -107,15 +204,44 @@ public class AppointmentService {
         }
 
         appointmentRepository.delete(appt);
+        Long doctorId = appt.getDoctor() != null ? appt.getDoctor().getId() : null;
+        slotIndex.markReleased(doctorId, appt.getAppointmentTime());
+        slotEvents.slotReleased(doctorId, appt.getAppointmentTime());
+        agenda.removed(appt.getId(), doctorId, appt.getAppointmentTime());
         body.put("message", "Appointment canceled successfully.");
         return ResponseEntity.ok(body);
     }
 
+    /**
+     * Changes the status of the doctor's (from token) appointments, e.g. marking a day's visits completed.
+     * Queued in AppointmentStatusQueue and written in batches; nothing is read from the database here.
+     * Only 0 (scheduled) and 1 (completed): a cancelled appointment must free its slot, so
+     * cancellation goes through cancelAppointment, which deletes the row.
+     * @return 1 when queued, -1 for an invalid status, 0 on failure
+     */
+    public int changeStatus(Collection<Long> appointmentIds, int status, String token) {
+        if (status != 0 && status != 1) return -1;
+        try {
+            Long doctorId = tokenService.getUserIdFromToken(token);
+            if (doctorId == null) {
+                // Tokens issued before the uid claim existed
+                Doctor doctor = directoryCache.doctorByEmail(tokenService.getEmailFromToken(token));
+                if (doctor == null) return 0;
+                doctorId = doctor.getId();
+            }
+            statusQueue.enqueue(doctorId, appointmentIds, status);
+            agenda.statusChanged(doctorId, appointmentIds, status);
+            return 1;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
     /**
      * Retrieves appointments for the doctor (from token) on a specific date,
      * optionally filtered by patient name (case-insensitive, partial match).
      *
-     * Returns: { "appointments": List<Appointment> }
+     * Returns: { "appointments": List<AppointmentDTO> }
      */
     public Map<String, Object> getAppointment(String pname, LocalDate date, String token) {
         Map<String, Object> result = new HashMap<>();
@@ -123,28 +249,44 @@ public class AppointmentService {
         // Expecting the token to belong to the doctor (or include doctorId). Adjust if your flow differs.
         Long doctorId = tokenService.getUserIdFromToken(token);
 
-        // Build [start, end) of the given date
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = start.plusDays(1);
-
-        List<Appointment> appts;
-        if (pname != null && !pname.trim().isEmpty()) {
-            appts = appointmentRepository
-                    .findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                            doctorId, pname.trim(), start, end);
-        } else {
-            appts = appointmentRepository
-                    .findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
-        }
-
-        result.put("appointments", appts);
+        // Served from the materialized agenda; the name filter runs over that day's list
+        result.put("appointments", agenda.appointments(doctorId, date, pname));
         return result;
     }
 
+    private static Long patientIdOf(Appointment appt) {
+        return appt.getPatient() != null ? appt.getPatient().getId() : null;
+    }
+
     // ------------------------------------------------------------
-    // Helper validation (expand with overlap checks, business rules, etc.)
+    // Helper validation
     // ------------------------------------------------------------
+    // Doctor and patient existence come from one BookingCheck query, run here
     private Map<String, String> validateAppointment(Appointment appt) {
+        Map<String, String> errors = requiredFieldErrors(appt);
+        if (!errors.isEmpty()) return errors;
+        return validateAppointment(appt, doctorRepository.checkBooking(appt.getDoctor().getId(), patientIdOf(appt),
+                                                                       appt.getAppointmentTime()));
+    }
+
+    // Same, with the caller's check (an empty check means the doctor doesn't exist).
+    // Slot conflicts are decided under the booking lock (DoctorSlotIndex + unique constraint).
+    private Map<String, String> validateAppointment(Appointment appt, Optional<BookingCheck> check) {
+        Map<String, String> errors = requiredFieldErrors(appt);
+        if (!errors.isEmpty()) return errors;
+
+        if (check.isEmpty()) {
+            errors.put("message", "Invalid doctor ID.");
+            return errors;
+        }
+        if (!check.get().isPatientExists()) {
+            errors.put("message", "Invalid patient ID.");
+            return errors;
+        }
+        return errors;
+    }
+
+    private static Map<String, String> requiredFieldErrors(Appointment appt) {
         Map<String, String> errors = new HashMap<>();
         if (appt == null) {
             errors.put("message", "Appointment cannot be null.");
@@ -154,34 +296,14 @@ public class AppointmentService {
             errors.put("message", "Appointment time is required.");
             return errors;
         }
-
-        // Validate doctor exists
         if (appt.getDoctor() == null || appt.getDoctor().getId() == null) {
             errors.put("message", "Doctor information is required.");
             return errors;
-        } else {
-            Optional<Doctor> doc = doctorRepository.findById(appt.getDoctor().getId());
-            if (doc.isEmpty()) {
-                errors.put("message", "Invalid doctor ID.");
-                return errors;
-            }
         }
-
-        // Validate patient exists
         if (appt.getPatient() == null || appt.getPatient().getId() == null) {
             errors.put("message", "Patient information is required.");
             return errors;
-        } else {
-            Optional<Patient> pat = patientRepository.findById(appt.getPatient().getId());
-            if (pat.isEmpty()) {
-                errors.put("message", "Invalid patient ID.");
-                return errors;
-            }
         }
-
-        // TODO: add overlap/conflict checks here if your domain requires it
-        // e.g., use appointmentRepository to query overlapping slots for the same doctor/patient.
-
         return errors;
     }
 }
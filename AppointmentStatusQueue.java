@@ -0,0 +1,235 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind queue for appointment status changes (0 = Scheduled, 1 = Completed).
+ *
+ * Changes are coalesced per appointment (last write wins) and written as one JDBC batch of
+ * UPDATE ... SET status = ? WHERE id = ? AND doctor_id = ? every flush-interval-ms, or sooner
+ * once flush-size changes are pending. The doctor_id condition does the ownership check, so
+ * nothing is read before writing.
+ *
+ * Every change is appended and fsync'ed to a local log before it is acknowledged; the log is
+ * replayed on startup and rewritten to just the still-pending changes after each flush.
+ * Readers may see the old status for up to one flush interval.
+ */
+@Component
+public class AppointmentStatusQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatusQueue.class);
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE appointment SET status = ? WHERE id = ? AND doctor_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path logPath;
+    private final long flushIntervalMs;
+    private final int flushSize;
+
+    // appointmentId -> latest requested change
+    private final Map<Long, PendingStatus> pending = new ConcurrentHashMap<>();
+
+    // Guards the log file; a lock rather than synchronized so blocking I/O doesn't pin virtual threads
+    private final ReentrantLock logLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "appointment-status-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel logChannel;
+
+    public AppointmentStatusQueue(JdbcTemplate jdbcTemplate,
+                                  @Value("${app.status-queue.log-path:data/appointment-status.log}") String logPath,
+                                  @Value("${app.status-queue.flush-interval-ms:500}") long flushIntervalMs,
+                                  @Value("${app.status-queue.flush-size:500}") int flushSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.logPath = Paths.get(logPath);
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushSize = Math.max(1, flushSize);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (logPath.getParent() != null) Files.createDirectories(logPath.getParent());
+        replayLog();
+        logChannel = openLog();
+        // Rewrite right away: a torn last line skipped by the replay must not stay in the file,
+        // or the next append would be glued onto it ("12" + "345,6,1" -> "12345,6,1")
+        compactLog();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        try {
+            logChannel.close();
+        } catch (IOException ignored) {
+            // Whatever is still pending stays in the log for the next start
+        }
+    }
+
+    // ------------------------------------------------------------
+    // enqueue
+    // ------------------------------------------------------------
+    /**
+     * Durably records status changes for a doctor's appointments; returns once they are logged.
+     * Changes for appointments the doctor doesn't own are dropped at flush time (0 rows updated).
+     */
+    public void enqueue(Long doctorId, Collection<Long> appointmentIds, int status) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Long id : appointmentIds) {
+            lines.append(id).append(',').append(doctorId).append(',').append(status).append('\n');
+        }
+
+        logLock.lock();
+        try {
+            logChannel.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+            logChannel.force(false);
+            // Published under the log lock so a log rewrite never loses an acknowledged change
+            for (Long id : appointmentIds) {
+                pending.put(id, new PendingStatus(doctorId, status));
+            }
+        } finally {
+            logLock.unlock();
+        }
+
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Forgets a queued change for an appointment that is about to be rewritten as a whole
+     * (AppointmentService.updateAppointment), so an older queued status can't overwrite it.
+     */
+    public void discard(Long appointmentId) throws IOException {
+        if (appointmentId == null || !pending.containsKey(appointmentId)) return;
+        // Under the flush lock so an in-flight batch can't still write it afterwards
+        flushLock.lock();
+        try {
+            if (pending.remove(appointmentId) != null) compactLog();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // flush
+    // ------------------------------------------------------------
+    /**
+     * Writes everything pending in one batch and compacts the log.
+     * @return number of changes written
+     */
+    public int flush() throws IOException {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) return 0;
+
+            List<Map.Entry<Long, PendingStatus>> batch = new ArrayList<>(pending.entrySet());
+            jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, batch, flushSize, (ps, e) -> {
+                ps.setInt(1, e.getValue().status());
+                ps.setLong(2, e.getKey());
+                ps.setLong(3, e.getValue().doctorId());
+            });
+
+            // A newer change that arrived during the batch stays queued
+            for (Map.Entry<Long, PendingStatus> e : batch) {
+                pending.remove(e.getKey(), e.getValue());
+            }
+            compactLog();
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Entries stay pending (and logged); the next tick retries
+            log.warn("Appointment status flush failed, {} changes pending", pending.size(), e);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // log
+    // ------------------------------------------------------------
+    private FileChannel openLog() throws IOException {
+        return FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void replayLog() throws IOException {
+        if (!Files.exists(logPath)) return;
+        for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+            String[] parts = line.split(",");
+            if (parts.length != 3) continue; // torn last line after a crash
+            try {
+                pending.put(Long.parseLong(parts[0]), new PendingStatus(Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+            } catch (NumberFormatException ignored) {
+                // If a line isn't parseable, skip it
+            }
+        }
+        if (!pending.isEmpty()) log.info("Replaying {} queued appointment status changes", pending.size());
+    }
+
+    /**
+     * Replaces the log with the changes that are still pending (usually none).
+     */
+    private void compactLog() throws IOException {
+        logLock.lock();
+        try {
+            Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+            StringBuilder lines = new StringBuilder();
+            pending.forEach((id, p) -> lines.append(id).append(',').append(p.doctorId()).append(',')
+                                            .append(p.status()).append('\n'));
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+                out.force(false);
+            }
+            logChannel.close();
+            try {
+                Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                logChannel = openLog();
+            }
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private record PendingStatus(long doctorId, int status) { }
+}
@@ -0,0 +1,54 @@
+package com.example.dto;
+
+/**
+ * Everything a booking needs to know before it is saved, read in one query
+ * (DoctorRepository.checkBooking). A missing doctor means no row, so a check
+ * always describes an existing doctor.
+ */
+public class BookingCheck {
+
+    private final Long doctorId;
+    private final boolean patientExists;
+    private final boolean slotOffered;
+    private final boolean slotTaken;
+
+    // Counts come straight from the COUNT subqueries of the projection
+    public BookingCheck(Long doctorId,
+                        Long patientCount,
+                        Long offeredCount,
+                        Long takenCount) {
+        this.doctorId = doctorId;
+        this.patientExists = patientCount != null && patientCount > 0;
+        this.slotOffered = offeredCount != null && offeredCount > 0;
+        this.slotTaken = takenCount != null && takenCount > 0;
+    }
+
+    // Getters
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public boolean isPatientExists() {
+        return patientExists;
+    }
+
+    /**
+     * The doctor's profile lists this time of day.
+     */
+    public boolean isSlotOffered() {
+        return slotOffered;
+    }
+
+    /**
+     * Another appointment already holds this doctor and time. Status is deliberately not
+     * checked: cancelling deletes the row, so every remaining row (scheduled or completed)
+     * holds its slot, exactly like the unique (doctor_id, appointment_time) constraint.
+     */
+    public boolean isSlotTaken() {
+        return slotTaken;
+    }
+
+    public boolean isSlotFree() {
+        return slotOffered && !slotTaken;
+    }
+}
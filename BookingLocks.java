@@ -0,0 +1,52 @@
+package com.example.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize bookings per (doctor, day).
+ * Different doctors (or days) almost always land on different stripes,
+ * so they keep booking in parallel.
+ */
+@Component
+public class BookingLocks {
+
+    private static final int STRIPES = 256; // power of two
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public BookingLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock guarding the given doctor's schedule on the given day.
+     */
+    public ReentrantLock lockFor(Long doctorId, LocalDate date) {
+        return locks[stripe(doctorId, date)];
+    }
+
+    /**
+     * Locks guarding two schedules (e.g. the old and new slot of a moved appointment), distinct
+     * and in stripe order so that two movers can never deadlock. Lock them in list order.
+     * A null doctor or date on the first pair means only the second one is needed.
+     */
+    public List<ReentrantLock> locksFor(Long doctorA, LocalDate dateA, Long doctorB, LocalDate dateB) {
+        int b = stripe(doctorB, dateB);
+        if (doctorA == null || dateA == null) return List.of(locks[b]);
+        int a = stripe(doctorA, dateA);
+        if (a == b) return List.of(locks[a]);
+        return a < b ? List.of(locks[a], locks[b]) : List.of(locks[b], locks[a]);
+    }
+
+    private static int stripe(Long doctorId, LocalDate date) {
+        int h = 31 * Long.hashCode(doctorId) + Long.hashCode(date.toEpochDay());
+        h ^= (h >>> 16); // spread high bits before masking
+        return h & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Small thread-safe LRU map with a fixed maximum size.
+ * Used for the in-process caches kept by the services.
+ */
+public class BoundedCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public BoundedCache(int maxSize) {
+        // access-order = true -> least recently used entry is evicted first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Replaces the value of a present key; absent keys stay absent.
+     */
+    public synchronized void computeIfPresent(K key, UnaryOperator<V> remapping) {
+        entries.computeIfPresent(key, (k, v) -> remapping.apply(v));
+    }
+
+    /**
+     * Snapshot of the keys matching a predicate.
+     */
+    public synchronized List<K> keys(Predicate<K> predicate) {
+        List<K> out = new ArrayList<>();
+        for (K key : entries.keySet()) {
+            if (predicate.test(key)) out.add(key);
+        }
+        return out;
+    }
+
+    public synchronized void removeIf(BiPredicate<K, V> predicate) {
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue()));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor for the concurrent sub-queries of aggregated endpoints (patient dashboard).
+ * Uses virtual threads when app.virtual-threads.enabled=true, otherwise a small
+ * bounded pool that falls back to running on the caller when saturated.
+ */
+@Configuration
+public class DashboardExecutorConfig {
+
+    @Bean(name = "dashboardExecutor", destroyMethod = "")
+    public Executor dashboardExecutor(@Value("${app.virtual-threads.enabled:false}") boolean virtualThreads,
+                                      @Value("${app.dashboard.max-threads:32}") int maxThreads) {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(Math.min(8, maxThreads));
+        pool.setMaxPoolSize(maxThreads);
+        pool.setQueueCapacity(200);
+        pool.setThreadNamePrefix("dashboard-");
+        pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.initialize();
+        return pool;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.service;
+
+import com.example.model.Doctor;
+import com.example.model.Patient;
+import com.example.repository.DoctorRepository;
+import com.example.repository.PatientRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the Doctor and Patient rows read on nearly every request
+ * (token checks, booking validation, availability, patient details).
+ *
+ * Size-bounded LRU with a TTL as a backstop across instances; DoctorService evicts on
+ * save / update / delete and PatientService on create. Only found rows are cached.
+ * Cached entities are shared: callers must treat them as read-only.
+ *
+ * Metrics: cache.gets{cache=doctors|patients, result=hit|miss} and cache.size.
+ */
+@Component
+public class DirectoryCache {
+
+    private static final int MAX_DOCTORS = 10_000;
+    private static final int MAX_PATIENTS = 50_000;
+    private static final long TTL_MS = 5 * 60 * 1000;
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+
+    private final BoundedCache<Long, Cached<Doctor>> doctorsById = new BoundedCache<>(MAX_DOCTORS);
+    private final BoundedCache<String, Cached<Doctor>> doctorsByEmail = new BoundedCache<>(MAX_DOCTORS);
+    private final BoundedCache<Long, Cached<Patient>> patientsById = new BoundedCache<>(MAX_PATIENTS);
+    private final BoundedCache<String, Cached<Patient>> patientsByEmail = new BoundedCache<>(MAX_PATIENTS);
+
+    private final Counter doctorHits;
+    private final Counter doctorMisses;
+    private final Counter patientHits;
+    private final Counter patientMisses;
+
+    public DirectoryCache(DoctorRepository doctorRepository,
+                          PatientRepository patientRepository,
+                          MeterRegistry registry) {
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+
+        this.doctorHits = Counter.builder("cache.gets").tag("cache", "doctors").tag("result", "hit").register(registry);
+        this.doctorMisses = Counter.builder("cache.gets").tag("cache", "doctors").tag("result", "miss").register(registry);
+        this.patientHits = Counter.builder("cache.gets").tag("cache", "patients").tag("result", "hit").register(registry);
+        this.patientMisses = Counter.builder("cache.gets").tag("cache", "patients").tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", doctorsById, BoundedCache::size).tag("cache", "doctors").register(registry);
+        Gauge.builder("cache.size", patientsById, BoundedCache::size).tag("cache", "patients").register(registry);
+    }
+
+    // ------------------------------------------------------------
+    // doctors
+    // ------------------------------------------------------------
+    /**
+     * Doctor by id, with availability loaded.
+     */
+    public Optional<Doctor> doctorById(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(read(doctorsById, id, doctorHits, doctorMisses,
+                () -> doctorRepository.findWithAvailabilityById(id).orElse(null)));
+    }
+
+    /**
+     * Doctor by email, with availability loaded, or null.
+     */
+    public Doctor doctorByEmail(String email) {
+        if (email == null) return null;
+        return read(doctorsByEmail, email, doctorHits, doctorMisses,
+                () -> doctorRepository.findWithAvailabilityByEmail(email));
+    }
+
+    public void evictDoctor(Long id, String email) {
+        if (id != null) doctorsById.remove(id);
+        if (email != null) doctorsByEmail.remove(email);
+    }
+
+    // ------------------------------------------------------------
+    // patients
+    // ------------------------------------------------------------
+    public Optional<Patient> patientById(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(read(patientsById, id, patientHits, patientMisses,
+                () -> patientRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * Patient by email, or null.
+     */
+    public Patient patientByEmail(String email) {
+        if (email == null) return null;
+        return read(patientsByEmail, email, patientHits, patientMisses,
+                () -> patientRepository.findByEmail(email));
+    }
+
+    public void evictPatient(Long id, String email) {
+        if (id != null) patientsById.remove(id);
+        if (email != null) patientsByEmail.remove(email);
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private static <K, V> V read(BoundedCache<K, Cached<V>> cache, K key,
+                                 Counter hits, Counter misses, Supplier<V> loader) {
+        Cached<V> cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return cached.value();
+        }
+        misses.increment();
+
+        V value = loader.get();
+        if (value != null) {
+            cache.put(key, new Cached<>(value, System.currentTimeMillis() + TTL_MS));
+        } else if (cached != null) {
+            cache.remove(key);
+        }
+        return value;
+    }
+
+    private record Cached<V>(V value, long expiresAt) { }
+}
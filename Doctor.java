@@ -1,4 +1,11 @@
 @Entity
+@Table(name = "doctor", indexes = {
+        @Index(name = "idx_doctor_email", columnList = "email", unique = true),
+        @Index(name = "idx_doctor_has_am", columnList = "has_am"),
+        @Index(name = "idx_doctor_has_pm", columnList = "has_pm"),
+        @Index(name = "idx_doctor_name_normalized", columnList = "name_normalized"),
+        @Index(name = "idx_doctor_specialty_half", columnList = "specialty_normalized, has_am, has_pm")
+})
 class Doctor {
 
     @Id
@@ -6,6 +13,9 @@ class Doctor {
 	private Long id;
     
 	private String name;
+
+    // Physical names are pinned: ReactiveDoctorQueries reads these tables with plain SQL
+    @Column(name = "speciality")
     private String speciality;
     
     @Email
@@ -18,8 +28,34 @@ class Doctor {
     private String phone;
     
     @ElementCollection
+    @CollectionTable(name = "doctor_available_times", joinColumns = @JoinColumn(name = "doctor_id"))
+    @Column(name = "available_times")
     private List<String> availableTimes;
 
+    // Derived from availableTimes on every write (see deriveSearchColumns)
+    @ElementCollection
+    @CollectionTable(name = "doctor_slot_minutes", joinColumns = @JoinColumn(name = "doctor_id"))
+    @Column(name = "slot_minute")
+    @JsonIgnore
+    private Set<Integer> slotMinutes = new HashSet<>();
+
+    @Column(name = "has_am")
+    @JsonIgnore
+    private boolean hasAm;
+
+    @Column(name = "has_pm")
+    @JsonIgnore
+    private boolean hasPm;
+
+    // Lower-cased, trimmed copies used by the directory search
+    @Column(name = "name_normalized")
+    @JsonIgnore
+    private String nameNormalized;
+
+    @Column(name = "specialty_normalized")
+    @JsonIgnore
+    private String specialtyNormalized;
+
     Doctor(Long id, String name, String speciality, String email, String password, String phone, List<String> availableTimes;){
 
         this.id             = id;
@@ -43,5 +79,32 @@ class Doctor {
     public setEmail(String email){ this.email = email; }
     public setPhone(String name){ this.phone = phone; }
     public setAvailableTimes(String availableTimes){ this.availableTimes = availableTimes; }
+
+    // Keeps the search columns, slot_minute and the has_am / has_pm flags
+    // in step with name, speciality and availableTimes ("HH:mm").
+    // @PreUpdate does not fire when only availableTimes changed, so the service
+    // write paths also call this before saving (see DoctorSearchColumnBackfill for old rows).
+    @PrePersist
+    @PreUpdate
+    public void deriveSearchColumns(){
+        this.nameNormalized      = name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+        this.specialtyNormalized = speciality == null ? null : speciality.trim().toLowerCase(Locale.ROOT);
+
+        Set<Integer> minutes = new HashSet<>();
+        if (availableTimes != null) {
+            for (String s : availableTimes) {
+                try {
+                    LocalTime t = LocalTime.parse(s.trim(), DateTimeFormatter.ofPattern("HH:mm"));
+                    minutes.add(t.getHour() * 60 + t.getMinute());
+                } catch (Exception ignored) {
+                    // If a slot isn't parseable as HH:mm, skip it
+                }
+            }
+        }
+        this.slotMinutes.clear();
+        this.slotMinutes.addAll(minutes);
+        this.hasAm = minutes.stream().anyMatch(m -> m < 12 * 60);
+        this.hasPm = minutes.stream().anyMatch(m -> m >= 12 * 60); // noon and after = PM
+    }
   
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.example.service;
+
+import com.example.dto.AppointmentDTO;
+import com.example.model.Appointment;
+import com.example.model.Doctor;
+import com.example.model.Patient;
+import com.example.repository.AppointmentRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Materialized per-doctor daily agenda: the doctor dashboard's appointment list for one day,
+ * kept as a small immutable list of AppointmentDTOs ordered by time.
+ *
+ * A day is loaded on first use with one statement (appointments with doctor and patient fetched,
+ * no collections), then kept current by AppointmentService (book / update / cancel / status
+ * change) without going back to the database. Patient-name
+ * search is a scan over that list. LRU-bounded; a doctor's days are dropped on profile changes.
+ *
+ * Staleness: writes made through this instance are applied immediately. Anything else -- bookings
+ * on other instances, direct database writes, patient profile edits, a status change whose
+ * queued write later fails -- is picked up when the day expires, at most app.agenda.ttl-seconds
+ * (default 30) after it was loaded.
+ */
+@Component
+public class DoctorAgenda {
+
+    private static final int MAX_CACHED_DAYS = 20_000;
+    private static final int VERSION_STRIPES = 1024;
+
+    private final AppointmentRepository appointmentRepository;
+    private final DirectoryCache directoryCache;
+    private final long ttlMs;
+
+    // (doctorId, day) -> appointments ordered by time. Lists are never mutated once published.
+    private final BoundedCache<DayKey, CachedDay> days = new BoundedCache<>(MAX_CACHED_DAYS);
+
+    // Per-doctor change counters, striped by doctor id (same scheme as DoctorSlotIndex).
+    // A load that raced with a change to its doctor is returned but not cached.
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public DoctorAgenda(AppointmentRepository appointmentRepository,
+                        DirectoryCache directoryCache,
+                        @Value("${app.agenda.ttl-seconds:30}") long ttlSeconds) {
+        this.appointmentRepository = appointmentRepository;
+        this.directoryCache = directoryCache;
+        this.ttlMs = Math.max(1, ttlSeconds) * 1000;
+    }
+
+    // ------------------------------------------------------------
+    // read
+    // ------------------------------------------------------------
+    /**
+     * A doctor's appointments on a date, optionally only patients whose name contains
+     * patientName (case-insensitive).
+     */
+    public List<AppointmentDTO> appointments(Long doctorId, LocalDate date, String patientName) {
+        if (doctorId == null || date == null) return Collections.emptyList();
+
+        List<AppointmentDTO> day = day(new DayKey(doctorId, date));
+        String needle = patientName == null ? "" : patientName.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) return day;
+
+        List<AppointmentDTO> out = new ArrayList<>();
+        for (AppointmentDTO a : day) {
+            if (a.getPatientName() != null && a.getPatientName().toLowerCase(Locale.ROOT).contains(needle)) out.add(a);
+        }
+        return out;
+    }
+
+    // ------------------------------------------------------------
+    // incremental updates
+    // ------------------------------------------------------------
+    /**
+     * A new or moved appointment. Doctor and patient details come from DirectoryCache;
+     * if either can't be resolved the day is simply reloaded on next use.
+     */
+    public void added(Long appointmentId, Long doctorId, Long patientId, LocalDateTime time, int status) {
+        if (doctorId == null || time == null) return;
+        DayKey key = new DayKey(doctorId, time.toLocalDate());
+        bump(doctorId);
+
+        Optional<Doctor> doctor = directoryCache.doctorById(doctorId);
+        Optional<Patient> patient = directoryCache.patientById(patientId);
+        if (appointmentId == null || doctor.isEmpty() || patient.isEmpty()) {
+            days.remove(key);
+            return;
+        }
+        Patient p = patient.get();
+        AppointmentDTO dto = new AppointmentDTO(appointmentId, doctorId, doctor.get().getName(),
+                                                p.getId(), p.getName(), p.getEmail(), p.getPhone(), p.getAddress(),
+                                                time, status);
+        update(key, list -> {
+            list.removeIf(a -> a.getId().equals(appointmentId));
+            list.add(dto);
+            list.sort(Comparator.comparing(AppointmentDTO::getAppointmentTime));
+        });
+    }
+
+    /**
+     * An appointment left this doctor's day (canceled or moved away).
+     */
+    public void removed(Long appointmentId, Long doctorId, LocalDateTime time) {
+        if (appointmentId == null || doctorId == null || time == null) return;
+        bump(doctorId);
+        update(new DayKey(doctorId, time.toLocalDate()), list -> list.removeIf(a -> a.getId().equals(appointmentId)));
+    }
+
+    /**
+     * Status changes of a doctor's appointments (e.g. end-of-day close-out).
+     */
+    public void statusChanged(Long doctorId, Collection<Long> appointmentIds, int status) {
+        if (doctorId == null || appointmentIds == null || appointmentIds.isEmpty()) return;
+        Set<Long> ids = new HashSet<>(appointmentIds);
+        bump(doctorId);
+        for (DayKey key : days.keys(k -> k.doctorId() == doctorId)) {
+            update(key, list -> list.replaceAll(a -> !ids.contains(a.getId()) ? a : new AppointmentDTO(
+                    a.getId(), a.getDoctorId(), a.getDoctorName(), a.getPatientId(), a.getPatientName(),
+                    a.getPatientEmail(), a.getPatientPhone(), a.getPatientAddress(), a.getAppointmentTime(), status)));
+        }
+    }
+
+    /**
+     * Drops every cached day of a doctor (profile changed or doctor removed).
+     */
+    public void evictDoctor(Long doctorId) {
+        if (doctorId == null) return;
+        bump(doctorId);
+        days.removeIf((key, cached) -> key.doctorId() == doctorId);
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private List<AppointmentDTO> day(DayKey key) {
+        CachedDay cached = days.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) return cached.appointments();
+
+        int stripe = stripe(key.doctorId());
+        long before = versions.get(stripe);
+        List<AppointmentDTO> loaded = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
+                        key.doctorId(), key.date().atStartOfDay(), key.date().plusDays(1).atStartOfDay())
+                .stream().map(DoctorAgenda::toDto).toList();
+        if (versions.get(stripe) == before) {
+            days.put(key, new CachedDay(loaded, System.currentTimeMillis() + ttlMs));
+            // A change that slipped in while publishing may have been missed
+            if (versions.get(stripe) != before) days.remove(key);
+        }
+        return loaded;
+    }
+
+    // Copy-on-write update of a cached day; days that aren't cached are left alone.
+    // The expiry is kept: a local change doesn't make the rest of the day any fresher.
+    private void update(DayKey key, Consumer<List<AppointmentDTO>> change) {
+        days.computeIfPresent(key, cached -> {
+            List<AppointmentDTO> copy = new ArrayList<>(cached.appointments());
+            change.accept(copy);
+            return new CachedDay(List.copyOf(copy), cached.expiresAt());
+        });
+    }
+
+    private static AppointmentDTO toDto(Appointment a) {
+        Doctor d = a.getDoctor();
+        Patient p = a.getPatient();
+        return new AppointmentDTO(a.getId(), d.getId(), d.getName(),
+                                  p == null ? null : p.getId(), p == null ? null : p.getName(),
+                                  p == null ? null : p.getEmail(), p == null ? null : p.getPhone(),
+                                  p == null ? null : p.getAddress(),
+                                  a.getAppointmentTime(), a.getStatus());
+    }
+
+    // Bump before touching the cache: a concurrent load either sees it or publishes before our update
+    private void bump(long doctorId) {
+        versions.incrementAndGet(stripe(doctorId));
+    }
+
+    private static int stripe(long doctorId) {
+        return (int) Math.floorMod(doctorId, (long) VERSION_STRIPES);
+    }
+
+    private record DayKey(long doctorId, LocalDate date) { }
+
+    private record CachedDay(List<AppointmentDTO> appointments, long expiresAt) { }
+}
@@ -2,27 +2,51 @@ package com.example.controller;
 
 import com.example.model.Doctor;
 import com.example.model.Login; // or LoginRequestDTO if you used that name
+import com.example.service.DoctorImportService;
 import com.example.service.DoctorService;
+import com.example.service.SlotEventHub;
 import com.example.service.Service; // central validation/filtering service
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("${api.path}" + "doctor")
 public class DoctorController {
 
+    // Upper bounds for one batch availability request
+    private static final int MAX_BATCH_DOCTORS = 100;
+    private static final int MAX_BATCH_DAYS = 31;
+
     private final DoctorService doctorService;
     private final Service service;
+    private final ObjectMapper objectMapper;
+    private final DoctorImportService importService;
+    private final SlotEventHub slotEvents;
 
-    public DoctorController(DoctorService doctorService, Service service) {
+    public DoctorController(DoctorService doctorService, Service service, ObjectMapper objectMapper,
+                            DoctorImportService importService, SlotEventHub slotEvents) {
         this.doctorService = doctorService;
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.importService = importService;
+        this.slotEvents = slotEvents;
     }
 
     /**
@@ -51,13 +75,121 @@ public class DoctorController {
         return ResponseEntity.ok(Map.of("availability", availability));
     }
 
+    /**
+     * 1b) Get Availability for Many Doctors and Dates
+     * GET /doctor/availability/{user}/{token}?doctorIds=1,2,3&from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Returns { "availability": { doctorId: { date: ["HH:mm", ...] } } }
+     */
+    @GetMapping("/availability/{user}/{token}")
+    public ResponseEntity<?> getDoctorsAvailability(@PathVariable String user,
+                                                    @PathVariable String token,
+                                                    @RequestParam List<Long> doctorIds,
+                                                    @RequestParam String from,
+                                                    @RequestParam(required = false) String to) {
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, user);
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+
+        final LocalDate fromDate;
+        final LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = to == null || to.isBlank() ? fromDate : LocalDate.parse(to);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use yyyy-MM-dd."));
+        }
+        if (toDate.isBefore(fromDate) || ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_BATCH_DAYS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Date range must be at most " + MAX_BATCH_DAYS + " days."));
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(doctorIds);
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_DOCTORS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + MAX_BATCH_DOCTORS + " doctor ids."));
+        }
+
+        return ResponseEntity.ok(Map.of("availability", doctorService.getDoctorsAvailability(ids, fromDate, toDate)));
+    }
+
+    /**
+     * 1c) Live Availability Stream
+     * GET /doctor/availability/stream/{user}/{doctorId}/{date}/{token}   (text/event-stream)
+     * Sends a "snapshot" event { doctorId, date, availability: [...] }, then a "slot" event
+     * { doctorId, date, time: "HH:mm", state: "taken" | "released" } on every change.
+     */
+    // No "produces": the emitter sets text/event-stream itself, and the 401 / 400 / 503
+    // paths must still be writable as JSON
+    @GetMapping("/availability/stream/{user}/{doctorId}/{date}/{token}")
+    public ResponseEntity<?> streamDoctorAvailability(@PathVariable String user,
+                                                      @PathVariable Long doctorId,
+                                                      @PathVariable String date,
+                                                      @PathVariable String token) {
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, user);
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+
+        final LocalDate targetDate;
+        try {
+            targetDate = LocalDate.parse(date); // expects yyyy-MM-dd
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use yyyy-MM-dd."));
+        }
+
+        SseEmitter emitter = slotEvents.subscribe(doctorId, targetDate);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Server busy, please retry."));
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * 2) Get List of Doctors
      * GET /doctor
+     * Same { "doctors": [...] } payload as before, but streamed one keyset page at a time
+     * so memory stays flat however large the directory is.
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getDoctors() {
-        return ResponseEntity.ok(Map.of("doctors", doctorService.getDoctors()));
+    public ResponseEntity<StreamingResponseBody> getDoctors() {
+        StreamingResponseBody stream = out -> {
+            try (JsonGenerator gen = objectMapper.createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("doctors");
+
+                List<Doctor> page = doctorService.getDoctorsPage(null, DoctorService.DEFAULT_PAGE_SIZE);
+                while (!page.isEmpty()) {
+                    for (Doctor doctor : page) {
+                        gen.writeObject(doctor);
+                    }
+                    gen.flush();
+                    page = doctorService.getDoctorsPage(page.get(page.size() - 1).getId(),
+                                                        DoctorService.DEFAULT_PAGE_SIZE);
+                }
+
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(stream);
+    }
+
+    /**
+     * 2b) Get One Page of Doctors
+     * GET /doctor/page?after={lastId}&size={n}
+     * Returns { "doctors": [...], "nextCursor": id or null when there are no more pages }
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getDoctorsPage(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "" + DoctorService.DEFAULT_PAGE_SIZE) int size) {
+        List<Doctor> page = doctorService.getDoctorsPage(after, size);
+        Map<String, Object> body = new HashMap<>();
+        body.put("doctors", page);
+        body.put("nextCursor", page.size() < Math.min(Math.max(size, 1), DoctorService.MAX_PAGE_SIZE)
+                ? null : page.get(page.size() - 1).getId());
+        return ResponseEntity.ok(body);
     }
 
     /**
@@ -146,16 +278,75 @@ public class DoctorController {
      * 7) Filter Doctors
      * GET /doctor/filter/{name}/{time}/{speciality}
      * Note: "speciality" spelling from spec; mapped to "specialty" in service call.
+     * With no filter at all (/doctor/filter/null/null/null) the whole directory is streamed like GET /doctor.
      */
     @GetMapping("/filter/{name}/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filterDoctors(@PathVariable String name,
-                                                             @PathVariable String time,
-                                                             @PathVariable("speciality") String specialty) {
-        Map<String, Object> result = service.filterDoctor(
-                "null".equalsIgnoreCase(name) ? "" : name,
-                "null".equalsIgnoreCase(specialty) ? "" : specialty,
-                "null".equalsIgnoreCase(time) ? "" : time
-        );
-        return ResponseEntity.ok(result);
+    public ResponseEntity<?> filterDoctors(@PathVariable String name,
+                                           @PathVariable String time,
+                                           @PathVariable("speciality") String specialty) {
+        String n = "null".equalsIgnoreCase(name) ? "" : name;
+        String s = "null".equalsIgnoreCase(specialty) ? "" : specialty;
+        String t = "null".equalsIgnoreCase(time) ? "" : time;
+        if (!Service.hasDoctorFilter(n, s, t)) {
+            return getDoctors();
+        }
+        return ResponseEntity.ok(service.filterDoctor(n, s, t));
+    }
+
+    /**
+     * 8) Bulk Import Doctors
+     * POST /doctor/import/{token}?format=csv|ndjson
+     * Body is read as a stream (text/csv with a header row, or one JSON doctor per line).
+     * Returns { "message", "imported", "failed", "errors": [{ "row", "email", "message" }] }
+     */
+    @PostMapping("/import/{token}")
+    public ResponseEntity<Map<String, Object>> importDoctors(@PathVariable String token,
+                                                            @RequestParam(required = false) String format,
+                                                            HttpServletRequest request) {
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(validation.getStatusCode()).body(new HashMap<>(validation.getBody()));
+        }
+
+        String resolved = format != null ? format
+                : request.getContentType() != null && request.getContentType().startsWith("text/csv")
+                        ? DoctorImportService.FORMAT_CSV : DoctorImportService.FORMAT_NDJSON;
+        if (!DoctorImportService.FORMAT_CSV.equalsIgnoreCase(resolved)
+                && !DoctorImportService.FORMAT_NDJSON.equalsIgnoreCase(resolved)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Format must be csv or ndjson."));
+        }
+
+        try {
+            DoctorImportService.ImportResult result = importService.importDoctors(request.getInputStream(), resolved);
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "Imported " + result.getImported() + " doctors, " + result.getFailed() + " rows failed");
+            body.put("imported", result.getImported());
+            body.put("failed", result.getFailed());
+            body.put("errors", result.getErrors());
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Could not read upload."));
+        }
+    }
+
+    /**
+     * 9) Bulk Export Doctors
+     * GET /doctor/export/{token}?format=ndjson|csv
+     * Streamed one keyset page at a time; same columns the import accepts (no passwords).
+     */
+    @GetMapping("/export/{token}")
+    public ResponseEntity<?> exportDoctors(@PathVariable String token,
+                                           @RequestParam(defaultValue = DoctorImportService.FORMAT_NDJSON) String format) {
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "admin");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+
+        boolean csv = DoctorImportService.FORMAT_CSV.equalsIgnoreCase(format);
+        StreamingResponseBody stream = out -> importService.exportDoctors(out, format);
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=\"doctors." + (csv ? "csv" : "ndjson") + "\"")
+                .body(stream);
     }
 }
@@ -0,0 +1,336 @@
+package com.example.service;
+
+import com.example.model.Doctor;
+import com.example.repository.DoctorRepository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk doctor import / export for the admin dashboard.
+ *
+ * Import reads CSV (header row with JSON property names, e.g. name,specialty,email,password,phone,availability;
+ * availability slots separated by ';') or NDJSON (one doctor object per line) incrementally, so the
+ * upload is never held in memory. Emails are checked against one preloaded set instead of a
+ * findByEmail per row, and rows are inserted in chunks of app.doctor-import.batch-size, each in its
+ * own transaction and flushed / cleared before the next. A chunk that fails is retried row by row
+ * so one bad row only fails itself. Row errors are reported, never abort the import. Reported errors
+ * are fixed messages; the underlying parser / SQL exceptions are only logged.
+ *
+ * CSV export cells starting with '=', '+', '-' or '@' are prefixed with ' so spreadsheets do not
+ * evaluate them as formulas; the CSV import strips that prefix again.
+ */
+@Service
+public class DoctorImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorImportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    // Keep the error report bounded for very large uploads
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+
+    private static final TypeReference<Map<String, Object>> FIELD_MAP = new TypeReference<>() { };
+
+    // Column order of the CSV export (same names the import accepts; "id" is exported
+    // for reference only and ignored on import, ids are always assigned by the database)
+    private static final String[] EXPORT_COLUMNS = {"id", "name", "specialty", "email", "phone", "availability"};
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorService doctorService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public DoctorImportService(DoctorRepository doctorRepository,
+                               DoctorService doctorService,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               EntityManager entityManager,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.doctor-import.batch-size:500}") int batchSize) {
+        this.doctorRepository = doctorRepository;
+        this.doctorService = doctorService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // ------------------------------------------------------------
+    // import
+    // ------------------------------------------------------------
+    /**
+     * Imports doctors from a CSV or NDJSON stream.
+     * @param format FORMAT_CSV or FORMAT_NDJSON
+     */
+    public ImportResult importDoctors(InputStream in, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        ImportResult result = new ImportResult();
+
+        Set<String> knownEmails = new HashSet<>(doctorRepository.findAllEmails());
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String[] header = null;
+        String line;
+        int row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) continue;
+
+            if (csv && header == null) {
+                header = parseCsvLine(line).stream().map(String::trim).toArray(String[]::new);
+                continue;
+            }
+
+            Map<String, Object> fields;
+            Doctor doctor;
+            try {
+                fields = csv ? fromCsv(header, parseCsvLine(line)) : objectMapper.readValue(line, FIELD_MAP);
+                doctor = toDoctor(fields);
+            } catch (Exception e) {
+                log.debug("Doctor import: unreadable row {}", row, e);
+                result.fail(row, null, "Invalid row");
+                continue;
+            }
+
+            String error = validate(doctor);
+            if (error != null) {
+                result.fail(row, doctor.getEmail(), error);
+                continue;
+            }
+            // add() is false for both existing doctors and repeats within the upload
+            if (!knownEmails.add(doctor.getEmail().trim().toLowerCase(Locale.ROOT))) {
+                result.fail(row, doctor.getEmail(), "Doctor already exists");
+                continue;
+            }
+
+            doctor.deriveSearchColumns();
+            chunk.add(new PendingRow(row, fields, doctor));
+            if (chunk.size() >= batchSize) {
+                flushChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) flushChunk(chunk, result);
+        return result;
+    }
+
+    private void flushChunk(List<PendingRow> chunk, ImportResult result) {
+        List<Doctor> doctors = chunk.stream().map(PendingRow::doctor).toList();
+        try {
+            List<Doctor> saved = transactionTemplate.execute(status -> {
+                List<Doctor> out = doctorRepository.saveAll(doctors);
+                entityManager.flush();
+                entityManager.clear();
+                return out;
+            });
+            result.imported += saved.size();
+            doctorService.onDoctorsImported(saved);
+        } catch (Exception chunkFailure) {
+            // Isolate the offending rows; the rest of the chunk still goes in.
+            // The rolled-back saveAll already gave the original instances ids, so each
+            // retry works on a fresh Doctor built from the row's fields.
+            for (PendingRow pending : chunk) {
+                try {
+                    Doctor doctor = toDoctor(pending.fields());
+                    doctor.deriveSearchColumns();
+                    Doctor saved = transactionTemplate.execute(status -> doctorRepository.save(doctor));
+                    result.imported++;
+                    doctorService.onDoctorsImported(List.of(saved));
+                } catch (DataIntegrityViolationException e) {
+                    // The emails were checked up front, so this is a concurrent insert of the same email
+                    // or another constraint; only the unique email index is worth naming to the client
+                    log.debug("Doctor import: row {} violates a constraint", pending.row(), e);
+                    result.fail(pending.row(), pending.doctor().getEmail(),
+                            isEmailViolation(e) ? "Duplicate email" : "Invalid row");
+                } catch (Exception e) {
+                    log.warn("Doctor import: row {} could not be inserted", pending.row(), e);
+                    result.fail(pending.row(), pending.doctor().getEmail(), "Insert failed");
+                }
+            }
+        }
+    }
+
+    // An "id" in the upload would turn the insert into an update of whichever doctor owns it
+    private Doctor toDoctor(Map<String, Object> fields) {
+        if (fields == null) return null;
+        fields.remove("id");
+        return objectMapper.convertValue(fields, Doctor.class);
+    }
+
+    private Map<String, Object> fromCsv(String[] header, List<String> values) {
+        if (header == null) throw new IllegalArgumentException("missing header row");
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+            String value = unescapeFormula(values.get(i).trim());
+            if (value.isEmpty()) continue;
+            if ("availability".equals(header[i])) {
+                fields.put(header[i], Arrays.stream(value.split(";")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+            } else {
+                fields.put(header[i], value);
+            }
+        }
+        return fields;
+    }
+
+    private String validate(Doctor doctor) {
+        if (doctor == null) return "Empty row";
+        if (doctor.getEmail() == null || doctor.getEmail().isBlank()) return "Email is required";
+        if (doctor.getName() == null || doctor.getName().isBlank()) return "Name is required";
+        if (doctor.getPassword() == null || doctor.getPassword().isBlank()) return "Password is required";
+
+        Set<ConstraintViolation<Doctor>> violations = validator.validate(doctor);
+        if (violations.isEmpty()) return null;
+        ConstraintViolation<Doctor> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    // ------------------------------------------------------------
+    // export
+    // ------------------------------------------------------------
+    /**
+     * Writes every doctor to the stream, one keyset page at a time (passwords are never written).
+     */
+    public void exportDoctors(OutputStream out, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) writer.write(String.join(",", EXPORT_COLUMNS) + "\n");
+
+        List<Doctor> page = doctorService.getDoctorsPage(null, DoctorService.MAX_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            for (Doctor doctor : page) {
+                if (csv) {
+                    writer.write(toCsvLine(objectMapper.convertValue(doctor, Map.class)));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(doctor));
+                }
+                writer.write('\n');
+            }
+            writer.flush();
+            page = doctorService.getDoctorsPage(page.get(page.size() - 1).getId(), DoctorService.MAX_PAGE_SIZE);
+        }
+        writer.flush();
+    }
+
+    private static String toCsvLine(Map<?, ?> fields) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (String column : EXPORT_COLUMNS) {
+            Object value = fields.get(column);
+            String text = value instanceof Collection<?> c
+                    ? String.join(";", c.stream().map(String::valueOf).toList())
+                    : value == null ? "" : value.toString();
+            joiner.add(csvEscape(text));
+        }
+        return joiner.toString();
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    /**
+     * Splits one CSV record: comma separated, fields may be double-quoted with "" as an escaped quote.
+     * Quoted fields spanning several lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String csvEscape(String value) {
+        if (isFormulaStart(value)) value = "'" + value;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static boolean isFormulaStart(String value) {
+        if (value.isEmpty()) return false;
+        char c = value.charAt(0);
+        return c == '=' || c == '+' || c == '-' || c == '@';
+    }
+
+    // Inverse of the export's formula prefix, so an exported file imports unchanged
+    private static String unescapeFormula(String value) {
+        return value.length() > 1 && value.charAt(0) == '\'' && isFormulaStart(value.substring(1))
+                ? value.substring(1) : value;
+    }
+
+    private static boolean isEmailViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("email");
+    }
+
+    private record PendingRow(int row, Map<String, Object> fields, Doctor doctor) { }
+
+    /**
+     * Outcome of one import: how many rows went in and why the others did not.
+     */
+    public static class ImportResult {
+        private int imported;
+        private int failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private void fail(int row, String email, String message) {
+            failed++;
+            if (errors.size() >= MAX_REPORTED_ERRORS) return;
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("row", row);
+            error.put("email", email);
+            error.put("message", message);
+            errors.add(error);
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public List<Map<String, Object>> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -1,36 +1,79 @@
 package com.example.repository;
 
+import com.example.dto.BookingCheck;
 import com.example.model.Doctor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor> {
 
     // 1) Find a doctor by email
     Doctor findByEmail(String email);
 
-    // 2) Find doctors by partial name (LIKE + CONCAT for flexible pattern matching)
-    @Query("SELECT d FROM Doctor d WHERE d.name LIKE CONCAT('%', :name, '%')")
-    List<Doctor> findByNameLike(@Param("name") String name);
-
-    // 3) Filter doctors by partial name and exact specialty (case-insensitive)
-    @Query("""
-           SELECT d
-           FROM Doctor d
-           WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%'))
-             AND LOWER(d.specialty) = LOWER(:specialty)
-           """)
-    List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(@Param("name") String name,
-                                                                      @Param("specialty") String specialty);
-
-    // 4) Find doctors by specialty, ignoring case
-    List<Doctor> findBySpecialtyIgnoreCase(String specialty);
-}
+    // 2) Directory search (see DoctorSpecifications), loading availability in the same query
+    @Override
+    @EntityGraph(attributePaths = "availability")
+    List<Doctor> findAll(Specification<Doctor> spec);
+
+    // 3) Load several doctors with their availability in a single query
+    @EntityGraph(attributePaths = "availability")
+    List<Doctor> findByIdIn(Collection<Long> ids);
+
+    // 4) Keyset page: ids greater than the cursor, ascending (pass PageRequest.of(0, size))
+    @Query("SELECT d.id FROM Doctor d WHERE d.id > :afterId ORDER BY d.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 5) All { id, name } pairs, used to build the in-memory name index
+    @Query("SELECT d.id, d.name FROM Doctor d")
+    List<Object[]> findAllIdAndName();
 
+    // 6) Single doctor with availability loaded (used by the read-through DirectoryCache)
+    @EntityGraph(attributePaths = "availability")
+    Optional<Doctor> findWithAvailabilityById(Long id);
 
+    @EntityGraph(attributePaths = "availability")
+    Doctor findWithAvailabilityByEmail(String email);
 
+    // 7) Every doctor email, lower-cased (duplicate check for bulk imports)
+    @Query("SELECT LOWER(d.email) FROM Doctor d WHERE d.email IS NOT NULL")
+    List<String> findAllEmails();
+
+    // 8) Keyset page of doctors whose derived search columns were never filled in
+    //    (rows written before those columns existed); see DoctorSearchColumnBackfill
+    @Query("SELECT d.id FROM Doctor d WHERE d.id > :afterId AND ("
+            + "(d.name IS NOT NULL AND d.nameNormalized IS NULL) "
+            + "OR (d.speciality IS NOT NULL AND d.specialtyNormalized IS NULL) "
+            + "OR (d.availability IS NOT EMPTY AND d.slotMinutes IS EMPTY)) "
+            + "ORDER BY d.id ASC")
+    List<Long> findIdsMissingSearchColumns(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 9) Booking pre-check in one round trip: doctor row + patient / offered-slot / taken-slot counts.
+    //    Empty when the doctor does not exist. The offered slot is read from availability, the
+    //    same source as DoctorSlotIndex; the taken count ignores status (see BookingCheck.isSlotTaken).
+    @Query("SELECT new com.example.dto.BookingCheck(d.id, "
+            + "(SELECT COUNT(p) FROM Patient p WHERE p.id = :patientId), "
+            + "(SELECT COUNT(av) FROM Doctor d2 JOIN d2.availability av WHERE d2.id = d.id AND TRIM(av) = :slot), "
+            + "(SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = d.id AND a.appointmentTime = :time)) "
+            + "FROM Doctor d WHERE d.id = :doctorId")
+    Optional<BookingCheck> checkBooking(@Param("doctorId") Long doctorId,
+                                        @Param("patientId") Long patientId,
+                                        @Param("slot") String slot,
+                                        @Param("time") LocalDateTime time);
+
+    default Optional<BookingCheck> checkBooking(Long doctorId, Long patientId, LocalDateTime time) {
+        if (doctorId == null || time == null) return Optional.empty();
+        return checkBooking(doctorId, patientId, String.format("%02d:%02d", time.getHour(), time.getMinute()), time);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.service;
+
+import com.example.model.Doctor;
+import com.example.repository.DoctorRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills in the derived search columns (name_normalized, specialty_normalized, has_am / has_pm,
+ * doctor_slot_minutes) for doctors written before those columns existed.
+ *
+ * Runs once at startup, walking the affected rows by id in pages of BATCH_SIZE, each page in its
+ * own transaction. Rows that are already derived are skipped by the query, so restarts are cheap.
+ * New writes derive the columns themselves (Doctor.deriveSearchColumns via DoctorService / import).
+ */
+@Component
+public class DoctorSearchColumnBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public DoctorSearchColumnBackfill(DoctorRepository doctorRepository,
+                                      TransactionTemplate transactionTemplate) {
+        this.doctorRepository = doctorRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0L;
+        while (true) {
+            List<Long> ids = doctorRepository.findIdsMissingSearchColumns(afterId, PageRequest.of(0, BATCH_SIZE));
+            if (ids.isEmpty()) return;
+
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Doctor> doctors = doctorRepository.findByIdIn(ids);
+                doctors.forEach(Doctor::deriveSearchColumns);
+                doctorRepository.saveAll(doctors);
+            });
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+}
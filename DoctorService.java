@@ -1,22 +1,21 @@
 package com.example.service;
 
 import com.example.model.Doctor;
-import com.example.model.Appointment;
 import com.example.repository.DoctorRepository;
 import com.example.repository.AppointmentRepository;
+import com.example.repository.DoctorSpecifications;
 import com.example.security.TokenService;            // adjust package as needed
 import com.example.model.Login;                     // if you named it LoginRequestDTO, just change the type here
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class DoctorService {
@@ -24,52 +23,56 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
+    private final DoctorSlotIndex slotIndex;
+    private final NameSearchIndex nameIndex;
+    private final DirectoryCache directoryCache;
+    private final DoctorAgenda agenda;
 
-    private static final DateTimeFormatter SLOT_FMT = DateTimeFormatter.ofPattern("HH:mm");
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Filtered-directory results; cleared on every doctor write, TTL bounds staleness across instances
+    private static final int SEARCH_CACHE_SIZE = 1_000;
+    private static final long SEARCH_CACHE_TTL_MS = 60_000;
+
+    private final BoundedCache<DoctorFilter, CachedSearch> searchCache = new BoundedCache<>(SEARCH_CACHE_SIZE);
+
+    // Bumped on every doctor write; a search that raced with one is returned but not cached
+    private final AtomicLong searchVersion = new AtomicLong();
 
     public DoctorService(DoctorRepository doctorRepository,
                          AppointmentRepository appointmentRepository,
-                         TokenService tokenService) {
+                         TokenService tokenService,
+                         DoctorSlotIndex slotIndex,
+                         NameSearchIndex nameIndex,
+                         DirectoryCache directoryCache,
+                         DoctorAgenda agenda) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.slotIndex = slotIndex;
+        this.nameIndex = nameIndex;
+        this.directoryCache = directoryCache;
+        this.agenda = agenda;
     }
 
     /**
      * Fetch available slots for a doctor on a given date.
      * Assumes Doctor has a list of daily availability time strings like "09:00", "09:30", ...
      * Booked slots (appointments) are removed from that set.
+     * Served from DoctorSlotIndex, which is kept current on every booking change.
      */
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Optional<Doctor> opt = doctorRepository.findById(doctorId);
-        if (opt.isEmpty()) return Collections.emptyList();
-
-        Doctor doctor = opt.get();
-
-        // Base available slots from the doctor profile (null-safe)
-        List<String> baseSlots = Optional.ofNullable(doctor.getAvailability())
-                                         .orElse(Collections.emptyList());
-
-        if (baseSlots.isEmpty()) return Collections.emptyList();
-
-        // Window for that day
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = start.plusDays(1);
-
-        // Booked appointments for that day
-        List<Appointment> appts = appointmentRepository
-                .findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
-
-        // Collect booked times as "HH:mm"
-        Set<String> booked = appts.stream()
-                .map(a -> a.getAppointmentTime().toLocalTime().format(SLOT_FMT))
-                .collect(Collectors.toSet());
+        return slotIndex.availableSlots(doctorId, date);
+    }
 
-        // Filter out booked
-        return baseSlots.stream()
-                .filter(s -> !booked.contains(s))
-                .sorted(Comparator.comparing(s -> LocalTime.parse(s, SLOT_FMT)))
-                .collect(Collectors.toList());
+    /**
+     * Fetch available slots for many doctors over an inclusive date range.
+     * Returns doctorId -> date -> list of free "HH:mm" slots.
+     */
+    public Map<Long, Map<LocalDate, List<String>>> getDoctorsAvailability(Collection<Long> doctorIds,
+                                                                          LocalDate from, LocalDate to) {
+        return slotIndex.availableSlots(doctorIds, from, to);
     }
 
     /**
@@ -83,7 +86,13 @@ public class DoctorService {
             Doctor existing = doctorRepository.findByEmail(doctor.getEmail());
             if (existing != null) return -1;
 
-            doctorRepository.save(doctor);
+            doctor.deriveSearchColumns();
+            Doctor saved = doctorRepository.save(doctor);
+            // directory first: the slot index reloads profiles through it
+            directoryCache.evictDoctor(saved.getId(), saved.getEmail());
+            slotIndex.evictDoctor(saved.getId());
+            nameIndex.putDoctor(saved.getId(), saved.getName());
+            invalidateSearches();
             return 1;
         } catch (Exception e) {
             return 0;
@@ -100,8 +109,20 @@ public class DoctorService {
 
             return doctorRepository.findById(doctor.getId())
                     .map(d -> {
+                        // read before save: the merge copies the new values onto 'd'
+                        String previousEmail = d.getEmail();
                         // preserve ID; save all updated fields coming from 'doctor'
+                        doctor.deriveSearchColumns();
                         doctorRepository.save(doctor);
+                        // directory first: the slot index reloads profiles through it, so evicting
+                        // it second would let a concurrent read re-cache the old availability
+                        directoryCache.evictDoctor(doctor.getId(), previousEmail);
+                        directoryCache.evictDoctor(null, doctor.getEmail());
+                        slotIndex.evictDoctor(doctor.getId());
+                        tokenService.evictUser(previousEmail);
+                        nameIndex.putDoctor(doctor.getId(), doctor.getName());
+                        agenda.evictDoctor(doctor.getId());
+                        invalidateSearches();
                         return 1;
                     })
                     .orElse(-1);
@@ -111,10 +132,29 @@ public class DoctorService {
     }
 
     /**
-     * Get all doctors.
+     * Keeps the name index and search cache in step after a bulk import (DoctorImportService).
+     */
+    public void onDoctorsImported(List<Doctor> saved) {
+        if (saved == null || saved.isEmpty()) return;
+        for (Doctor doctor : saved) {
+            nameIndex.putDoctor(doctor.getId(), doctor.getName());
+        }
+        invalidateSearches();
+    }
+
+    /**
+     * Get one keyset page of doctors, ordered by id.
+     * @param afterId cursor: id of the last doctor of the previous page (null for the first page)
+     * @param size page size, clamped to [1, MAX_PAGE_SIZE]
      */
-    public List<Doctor> getDoctors() {
-        return doctorRepository.findAll();
+    public List<Doctor> getDoctorsPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Long> ids = doctorRepository.findIdsAfter(afterId == null ? 0L : afterId, PageRequest.of(0, pageSize));
+        if (ids.isEmpty()) return Collections.emptyList();
+
+        List<Doctor> page = new ArrayList<>(doctorRepository.findByIdIn(ids));
+        page.sort(Comparator.comparing(Doctor::getId));
+        return page;
     }
 
     /**
@@ -123,9 +163,17 @@ public class DoctorService {
      */
     public int deleteDoctor(long id) {
         try {
-            if (!doctorRepository.existsById(id)) return -1;
+            Optional<Doctor> existing = doctorRepository.findById(id);
+            if (existing.isEmpty()) return -1;
             appointmentRepository.deleteAllByDoctorId(id);
             doctorRepository.deleteById(id);
+            // directory first: the slot index reloads profiles through it
+            directoryCache.evictDoctor(id, existing.get().getEmail());
+            slotIndex.evictDoctor(id);
+            tokenService.evictUser(existing.get().getEmail());
+            nameIndex.removeDoctor(id);
+            agenda.evictDoctor(id);
+            invalidateSearches();
             return 1;
         } catch (Exception e) {
             return 0;
@@ -157,125 +205,90 @@ public class DoctorService {
         }
 
         // Generate token (adjust method to match your TokenService)
-        String token = tokenService.generateToken(doc.getId(), "doctor");
+        String token = tokenService.generateToken(doc.getEmail(), doc.getId(), "doctor");
         body.put("token", token);
         body.put("message", "Login successful.");
         return ResponseEntity.ok(body);
     }
 
     /**
-     * Find doctors by (partial) name.
+     * Filter by any combination of name (partial), specialty (exact) and AM/PM availability.
+     * Builds one Specification query over the normalized, indexed search columns;
+     * results are cached per normalized filter until the next doctor write.
+     * Blank arguments are ignored; a time other than AM/PM matches nobody.
      */
-    public Map<String, Object> findDoctorByName(String name) {
-        List<Doctor> docs = doctorRepository.findByNameLike(name == null ? "" : name.trim());
+    public Map<String, Object> filterDoctors(String name, String specialty, String amOrPm) {
         Map<String, Object> result = new HashMap<>();
-        result.put("doctors", docs);
-        return result;
-    }
 
-    /**
-     * Filter by name, specialty, and AM/PM availability.
-     */
-    public Map<String, Object> filterDoctorsByNameSpecilityandTime(String name, String specialty, String amOrPm) {
-        List<Doctor> docs = doctorRepository
-                .findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(
-                        safe(name), safe(specialty)
-                );
-        List<Doctor> filtered = filterDoctorByTime(docs, amOrPm);
-        Map<String, Object> result = new HashMap<>();
-        result.put("doctors", filtered);
-        return result;
-    }
+        DoctorFilter filter = DoctorFilter.of(name, specialty, amOrPm);
+        if (!filter.isSatisfiable()) {
+            result.put("doctors", Collections.emptyList());
+            return result;
+        }
 
-    /**
-     * Filter by name and AM/PM availability.
-     */
-    public Map<String, Object> filterDoctorByNameAndTime(String name, String amOrPm) {
-        List<Doctor> docs = doctorRepository.findByNameLike(safe(name));
-        List<Doctor> filtered = filterDoctorByTime(docs, amOrPm);
-        Map<String, Object> result = new HashMap<>();
-        result.put("doctors", filtered);
-        return result;
-    }
+        CachedSearch cached = searchCache.get(filter);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            result.put("doctors", cached.doctors());
+            return result;
+        }
+
+        List<Specification<Doctor>> specs = new ArrayList<>();
+        if (!filter.name().isEmpty()) {
+            // Prefer the in-memory name index; fall back to LIKE while it loads or on very broad names
+            Set<Long> ids = nameIndex.doctorIdsMatching(filter.name());
+            if (ids != null && ids.isEmpty()) {
+                result.put("doctors", Collections.emptyList());
+                return result;
+            }
+            specs.add(ids != null
+                    ? DoctorSpecifications.idIn(ids)
+                    : DoctorSpecifications.nameContains(filter.name()));
+        }
+        if (!filter.specialty().isEmpty()) specs.add(DoctorSpecifications.specialtyIs(filter.specialty()));
+        if ("AM".equals(filter.half())) specs.add(DoctorSpecifications.availableAm());
+        if ("PM".equals(filter.half())) specs.add(DoctorSpecifications.availablePm());
+
+        long before = searchVersion.get();
+        List<Doctor> docs = List.copyOf(doctorRepository.findAll(Specification.allOf(specs)));
+        if (searchVersion.get() == before) {
+            searchCache.put(filter, new CachedSearch(docs, System.currentTimeMillis() + SEARCH_CACHE_TTL_MS));
+            // A write that slipped in while publishing may have been missed
+            if (searchVersion.get() != before) searchCache.remove(filter);
+        }
 
-    /**
-     * Filter by name and specialty.
-     */
-    public Map<String, Object> filterDoctorByNameAndSpecility(String name, String specilty) {
-        List<Doctor> docs = doctorRepository
-                .findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(
-                        safe(name), safe(specilty)
-                );
-        Map<String, Object> result = new HashMap<>();
         result.put("doctors", docs);
         return result;
     }
 
+    // ------------------------------------------------------------
+    // Small helpers
+    // ------------------------------------------------------------
     /**
-     * Filter by specialty and AM/PM availability.
+     * Normalized directory filter (trimmed, lower-case name / specialty, "AM" / "PM" / "" half).
+     * Shared with ReactiveDoctorService so both stacks match the same doctors.
      */
-    public Map<String, Object> filterDoctorByTimeAndSpecility(String specilty, String amOrPm) {
-        List<Doctor> docs = doctorRepository.findBySpecialtyIgnoreCase(safe(specilty));
-        List<Doctor> filtered = filterDoctorByTime(docs, amOrPm);
-        Map<String, Object> result = new HashMap<>();
-        result.put("doctors", filtered);
-        return result;
-    }
+    public record DoctorFilter(String name, String specialty, String half) {
 
-    /**
-     * Filter by specialty only.
-     */
-    public Map<String, Object> filterDoctorBySpecility(String specilty) {
-        List<Doctor> docs = doctorRepository.findBySpecialtyIgnoreCase(safe(specilty));
-        Map<String, Object> result = new HashMap<>();
-        result.put("doctors", docs);
-        return result;
-    }
+        public static DoctorFilter of(String name, String specialty, String amOrPm) {
+            return new DoctorFilter(normalize(name), normalize(specialty),
+                                    amOrPm == null ? "" : amOrPm.trim().toUpperCase(Locale.ROOT));
+        }
 
-    /**
-     * Filter all doctors by AM/PM availability.
-     */
-    public Map<String, Object> filterDoctorsByTime(String amOrPm) {
-        List<Doctor> docs = doctorRepository.findAll();
-        List<Doctor> filtered = filterDoctorByTime(docs, amOrPm);
-        Map<String, Object> result = new HashMap<>();
-        result.put("doctors", filtered);
-        return result;
-    }
+        // A time other than AM/PM matches nobody
+        public boolean isSatisfiable() {
+            return half.isEmpty() || "AM".equals(half) || "PM".equals(half);
+        }
 
-    /**
-     * PRIVATE: From a list of doctors, keep only those with availability matching AM/PM.
-     * Availability is assumed to be List<String> "HH:mm". If a doctor has any slot in the half-day, they pass.
-     */
-    private List<Doctor> filterDoctorByTime(List<Doctor> doctors, String amOrPm) {
-        if (doctors == null || doctors.isEmpty() || amOrPm == null) return Collections.emptyList();
-        String half = amOrPm.trim().toUpperCase(Locale.ROOT);
-        boolean wantAM = "AM".equals(half);
-        boolean wantPM = "PM".equals(half);
-
-        if (!wantAM && !wantPM) return Collections.emptyList();
-
-        return doctors.stream()
-                .filter(d -> {
-                    List<String> slots = Optional.ofNullable(d.getAvailability()).orElse(Collections.emptyList());
-                    for (String s : slots) {
-                        try {
-                            LocalTime t = LocalTime.parse(s, SLOT_FMT);
-                            if (wantAM && t.isBefore(LocalTime.NOON)) return true;
-                            if (wantPM && !t.isBefore(LocalTime.NOON)) return true; // noon and after = PM
-                        } catch (Exception ignored) {
-                            // If a slot isn't parseable as HH:mm, skip it
-                        }
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
+        private static String normalize(String s) {
+            return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+        }
     }
 
-    // ------------------------------------------------------------
-    // Small helpers
-    // ------------------------------------------------------------
-    private String safe(String s) {
-        return s == null ? "" : s.trim();
+    // Bump before clearing: a search in flight either sees the new version or is cleared with the rest
+    private void invalidateSearches() {
+        searchVersion.incrementAndGet();
+        searchCache.clear();
     }
+
+    private record CachedSearch(List<Doctor> doctors, long expiresAt) { }
 }
@@ -0,0 +1,368 @@
+package com.example.service;
+
+import com.example.model.Doctor;
+import com.example.repository.AppointmentRepository;
+import com.example.repository.DoctorRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory index of doctor slots, one bit per minute of the day.
+ *
+ * Base slots come from the doctor profile and booked slots from the appointments
+ * of a given day; both are kept current by AppointmentService (book / update / cancel)
+ * and DoctorService (save / update / delete) and expire so that changes made on other
+ * instances or directly in the database show up: booked days after
+ * app.slot-index.ttl-seconds (default: app.agenda.ttl-seconds, 30), profiles after 5 minutes.
+ * Availability is then a single AND-NOT with no database round trip.
+ *
+ * The index is only a fast pre-check for bookings; the unique (doctor_id, appointment_time)
+ * constraint makes the final decision (see AppointmentService.bookAppointment).
+ */
+@Component
+public class DoctorSlotIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_CACHED_DAYS = 50_000;
+    private static final int MAX_CACHED_DOCTORS = 10_000;
+    private static final int VERSION_STRIPES = 1024;
+    // Profiles edited on another instance show up after at most this long
+    private static final long BASE_TTL_MS = 5 * 60 * 1000;
+    private static final DateTimeFormatter SLOT_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    // Pre-formatted "HH:mm" labels, indexed by minute of day
+    private static final String[] SLOT_LABELS = new String[MINUTES_PER_DAY];
+
+    static {
+        for (int m = 0; m < MINUTES_PER_DAY; m++) {
+            SLOT_LABELS[m] = LocalTime.of(m / 60, m % 60).format(SLOT_FMT);
+        }
+    }
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final DirectoryCache directoryCache;
+    private final long bookedTtlMs;
+
+    // doctorId -> minutes offered in the doctor's profile; only existing doctors are cached
+    private final BoundedCache<Long, CachedBits> baseSlots = new BoundedCache<>(MAX_CACHED_DOCTORS);
+
+    // (doctorId, day) -> minutes already booked, until expiresAt.
+    // BitSets are never mutated once published; writers swap in a modified copy.
+    private final Map<DayKey, BookedDay> bookedSlots = new ConcurrentHashMap<>();
+
+    // Per-doctor booking versions, striped by doctor id so the table stays bounded.
+    // Bumped on every booked-slot change; lets a load detect it raced with a write
+    // to one of its own doctors without being invalidated by bookings elsewhere.
+    private final AtomicLongArray bookingVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    public DoctorSlotIndex(DoctorRepository doctorRepository,
+                           AppointmentRepository appointmentRepository,
+                           DirectoryCache directoryCache,
+                           @Value("${app.slot-index.ttl-seconds:${app.agenda.ttl-seconds:30}}") long bookedTtlSeconds) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.directoryCache = directoryCache;
+        this.bookedTtlMs = Math.max(1, bookedTtlSeconds) * 1000;
+    }
+
+    // ------------------------------------------------------------
+    // availableSlots
+    // ------------------------------------------------------------
+    /**
+     * Free slots ("HH:mm", ascending) for a doctor on a given date.
+     * Returns an empty list if the doctor does not exist or has no availability.
+     */
+    public List<String> availableSlots(Long doctorId, LocalDate date) {
+        if (doctorId == null || date == null) return Collections.emptyList();
+
+        BitSet base = baseSlots(doctorId);
+        if (base.isEmpty()) return Collections.emptyList();
+
+        BitSet free = (BitSet) base.clone();
+        free.andNot(bookedSlots(doctorId, date));
+        return toLabels(free);
+    }
+
+    /**
+     * Free slots for many doctors over an inclusive date range: doctorId -> date -> "HH:mm" list.
+     * Whatever is not already cached is loaded with one doctor query and one grouped
+     * appointment query, however many doctors and days are requested.
+     * Unknown doctors map to an empty map.
+     */
+    public Map<Long, Map<LocalDate, List<String>>> availableSlots(Collection<Long> doctorIds,
+                                                                  LocalDate from, LocalDate to) {
+        Map<Long, Map<LocalDate, List<String>>> result = new LinkedHashMap<>();
+        if (doctorIds == null || doctorIds.isEmpty() || from == null || to == null || to.isBefore(from)) {
+            return result;
+        }
+
+        Map<Long, BitSet> bases = loadBaseSlots(doctorIds);
+        Map<DayKey, BitSet> booked = loadBookedSlots(doctorIds, from, to);
+
+        for (Long doctorId : doctorIds) {
+            Map<LocalDate, List<String>> days = new LinkedHashMap<>();
+            BitSet base = bases.getOrDefault(doctorId, new BitSet());
+            if (!base.isEmpty()) {
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                    BitSet free = (BitSet) base.clone();
+                    free.andNot(booked.get(new DayKey(doctorId, d.toEpochDay())));
+                    days.put(d, toLabels(free));
+                }
+            }
+            result.put(doctorId, days);
+        }
+        return result;
+    }
+
+    /**
+     * Whether the given minute is already taken by an appointment, as far as the index knows
+     * (at most one TTL old).
+     */
+    public boolean isBooked(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null) return false;
+        return bookedSlots(doctorId, time.toLocalDate()).get(minuteOfDay(time.toLocalTime()));
+    }
+
+    /**
+     * Same as isBooked, but re-reads the day from the database first. Used before turning a
+     * booking away, so a slot freed on another instance is not refused until the day expires.
+     */
+    public boolean isBookedInDatabase(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null) return false;
+        evictDay(doctorId, time.toLocalDate());
+        return isBooked(doctorId, time);
+    }
+
+    /**
+     * Drops one cached day, e.g. after the database rejected a booking the index thought was free.
+     */
+    public void evictDay(Long doctorId, LocalDate date) {
+        if (doctorId == null || date == null) return;
+        bookingVersions.incrementAndGet(stripe(doctorId));
+        bookedSlots.remove(new DayKey(doctorId, date.toEpochDay()));
+    }
+
+    // ------------------------------------------------------------
+    // incremental updates
+    // ------------------------------------------------------------
+    /**
+     * Marks a slot as booked. Days that were never loaded are left alone;
+     * they will read the new appointment from the database on first use.
+     */
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null) return;
+        // Bump first: a concurrent load either sees the new version or publishes before our update
+        bookingVersions.incrementAndGet(stripe(doctorId));
+        bookedSlots.computeIfPresent(new DayKey(doctorId, time.toLocalDate().toEpochDay()), (k, day) -> {
+            BitSet copy = (BitSet) day.bits().clone();
+            copy.set(minuteOfDay(time.toLocalTime()));
+            return new BookedDay(copy, day.expiresAt());
+        });
+    }
+
+    /**
+     * Marks a slot as free again (appointment canceled or moved).
+     */
+    public void markReleased(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null) return;
+        // Bump first: a concurrent load either sees the new version or publishes before our update
+        bookingVersions.incrementAndGet(stripe(doctorId));
+        bookedSlots.computeIfPresent(new DayKey(doctorId, time.toLocalDate().toEpochDay()), (k, day) -> {
+            BitSet copy = (BitSet) day.bits().clone();
+            copy.clear(minuteOfDay(time.toLocalTime()));
+            return new BookedDay(copy, day.expiresAt());
+        });
+    }
+
+    /**
+     * Drops everything cached for a doctor (profile changed or doctor removed).
+     */
+    public void evictDoctor(Long doctorId) {
+        if (doctorId == null) return;
+        baseSlots.remove(doctorId);
+        bookedSlots.keySet().removeIf(k -> k.doctorId() == doctorId);
+    }
+
+    // ------------------------------------------------------------
+    // loading
+    // ------------------------------------------------------------
+    private BitSet baseSlots(Long doctorId) {
+        BitSet cached = cachedBase(doctorId);
+        if (cached != null) return cached;
+
+        // Unknown ids are answered but not cached, so probing ids can't grow the map
+        Optional<Doctor> doctor = directoryCache.doctorById(doctorId);
+        if (doctor.isEmpty()) return new BitSet();
+
+        BitSet bits = toBits(doctor.get().getAvailability());
+        baseSlots.put(doctorId, new CachedBits(bits, System.currentTimeMillis() + BASE_TTL_MS));
+        return bits;
+    }
+
+    private BitSet cachedBase(Long doctorId) {
+        CachedBits cached = baseSlots.get(doctorId);
+        return cached != null && cached.expiresAt() > System.currentTimeMillis() ? cached.bits() : null;
+    }
+
+    private BitSet bookedSlots(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date.toEpochDay());
+        BitSet cached = cachedBooked(key);
+        if (cached != null) return cached;
+
+        return loadBookedSlots(List.of(doctorId), date, date).get(key);
+    }
+
+    // Base slots of every requested doctor that exists; unknown ids are simply absent
+    private Map<Long, BitSet> loadBaseSlots(Collection<Long> doctorIds) {
+        Map<Long, BitSet> out = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(doctorIds)) {
+            BitSet cached = cachedBase(id);
+            if (cached != null) out.put(id, cached);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) return out;
+
+        long expiresAt = System.currentTimeMillis() + BASE_TTL_MS;
+        for (Doctor doctor : doctorRepository.findByIdIn(missing)) {
+            BitSet bits = toBits(doctor.getAvailability());
+            baseSlots.put(doctor.getId(), new CachedBits(bits, expiresAt));
+            out.put(doctor.getId(), bits);
+        }
+        return out;
+    }
+
+    private Map<DayKey, BitSet> loadBookedSlots(Collection<Long> doctorIds, LocalDate from, LocalDate to) {
+        Map<DayKey, BitSet> out = new HashMap<>();
+        Set<Long> missingDoctors = new HashSet<>();
+
+        for (Long doctorId : doctorIds) {
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                DayKey key = new DayKey(doctorId, d.toEpochDay());
+                BitSet cached = cachedBooked(key);
+                if (cached != null) out.put(key, cached);
+                else missingDoctors.add(doctorId);
+            }
+        }
+        if (missingDoctors.isEmpty()) return out;
+
+        if (bookedSlots.size() >= MAX_CACHED_DAYS) trimPastDays();
+
+        // No lock is held across the query (a synchronized map bin would pin virtual threads);
+        // a version check decides whether the result may be cached instead.
+        Map<Long, Long> versions = new HashMap<>();
+        for (Long doctorId : missingDoctors) versions.put(doctorId, bookingVersions.get(stripe(doctorId)));
+        Map<DayKey, BitSet> loaded = new HashMap<>();
+        if (missingDoctors.size() == 1) {
+            // Single doctor (availability, booking pre-check): time-only projection
+            Long doctorId = missingDoctors.iterator().next();
+            for (LocalDateTime t : appointmentRepository.findAppointmentTimesByDoctorIdBetween(
+                    doctorId, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                markLoaded(loaded, doctorId, t);
+            }
+        } else {
+            List<Object[]> rows = appointmentRepository.findBookedTimesByDoctorIdsBetween(
+                    missingDoctors, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+            for (Object[] row : rows) {
+                markLoaded(loaded, (Long) row[0], (LocalDateTime) row[1]);
+            }
+        }
+
+        // Only cache a doctor's days if none of its bookings changed while the query ran;
+        // the answer is still returned either way
+        boolean room = bookedSlots.size() < MAX_CACHED_DAYS;
+        long expiresAt = System.currentTimeMillis() + bookedTtlMs;
+        List<DayKey> published = new ArrayList<>();
+        for (Long doctorId : missingDoctors) {
+            boolean publish = room && unchanged(doctorId, versions);
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                DayKey key = new DayKey(doctorId, d.toEpochDay());
+                if (out.containsKey(key)) continue;
+                BitSet bits = loaded.getOrDefault(key, new BitSet(MINUTES_PER_DAY));
+                if (publish) {
+                    // An expired entry is replaced; a fresh one published meanwhile is kept
+                    BookedDay previous = bookedSlots.get(key);
+                    if (previous != null && previous.expiresAt() <= System.currentTimeMillis()) {
+                        bookedSlots.remove(key, previous);
+                    }
+                    if (bookedSlots.putIfAbsent(key, new BookedDay(bits, expiresAt)) == null) published.add(key);
+                }
+                out.put(key, bits);
+            }
+        }
+        // A write that slipped in while publishing may have been missed; drop what we cached
+        for (DayKey key : published) {
+            if (!unchanged(key.doctorId(), versions)) bookedSlots.remove(key);
+        }
+        return out;
+    }
+
+    private static void markLoaded(Map<DayKey, BitSet> loaded, Long doctorId, LocalDateTime t) {
+        loaded.computeIfAbsent(new DayKey(doctorId, t.toLocalDate().toEpochDay()), k -> new BitSet(MINUTES_PER_DAY))
+              .set(minuteOfDay(t.toLocalTime()));
+    }
+
+    private BitSet cachedBooked(DayKey key) {
+        BookedDay cached = bookedSlots.get(key);
+        return cached != null && cached.expiresAt() > System.currentTimeMillis() ? cached.bits() : null;
+    }
+
+    private boolean unchanged(Long doctorId, Map<Long, Long> versions) {
+        return bookingVersions.get(stripe(doctorId)) == versions.get(doctorId);
+    }
+
+    private void trimPastDays() {
+        long today = LocalDate.now().toEpochDay();
+        long now = System.currentTimeMillis();
+        bookedSlots.entrySet().removeIf(e -> e.getKey().epochDay() < today || e.getValue().expiresAt() <= now);
+        if (bookedSlots.size() >= MAX_CACHED_DAYS) bookedSlots.clear();
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private static int stripe(Long doctorId) {
+        return (int) Math.floorMod(doctorId, (long) VERSION_STRIPES);
+    }
+
+    private static int minuteOfDay(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    private static BitSet toBits(List<String> slots) {
+        BitSet bits = new BitSet(MINUTES_PER_DAY);
+        if (slots == null) return bits;
+        for (String s : slots) {
+            try {
+                bits.set(minuteOfDay(LocalTime.parse(s.trim(), SLOT_FMT)));
+            } catch (Exception ignored) {
+                // If a slot isn't parseable as HH:mm, skip it
+            }
+        }
+        return bits;
+    }
+
+    private static List<String> toLabels(BitSet bits) {
+        List<String> out = new ArrayList<>(bits.cardinality());
+        for (int m = bits.nextSetBit(0); m >= 0; m = bits.nextSetBit(m + 1)) {
+            out.add(SLOT_LABELS[m]);
+        }
+        return out;
+    }
+
+    private record DayKey(long doctorId, long epochDay) { }
+
+    private record CachedBits(BitSet bits, long expiresAt) { }
+
+    private record BookedDay(BitSet bits, long expiresAt) { }
+}
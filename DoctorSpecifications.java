@@ -0,0 +1,48 @@
+package com.example.repository;
+
+import com.example.model.Doctor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Composable predicates for the doctor directory search.
+ * Inputs are expected to be already normalized (trimmed, lower-case),
+ * matching the derived name_normalized / specialty_normalized columns
+ * (filled for older rows by DoctorSearchColumnBackfill).
+ */
+public final class DoctorSpecifications {
+
+    private DoctorSpecifications() {
+    }
+
+    // Partial name match on the lower-case name column (% and _ in the input are literal).
+    // A leading wildcard can't seek idx_doctor_name_normalized, so this scans the index at best;
+    // it is only the fallback while NameSearchIndex loads or when a name matches too many doctors.
+    public static Specification<Doctor> nameContains(String normalizedName) {
+        String pattern = "%" + normalizedName.replace("\\", "\\\\")
+                                             .replace("%", "\\%")
+                                             .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("nameNormalized"), pattern, '\\');
+    }
+
+    // Doctor id is one of the given ids (e.g. name matches resolved by the in-memory name index)
+    public static Specification<Doctor> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    // Exact specialty match on the lower-case specialty column
+    public static Specification<Doctor> specialtyIs(String normalizedSpecialty) {
+        return (root, query, cb) -> cb.equal(root.get("specialtyNormalized"), normalizedSpecialty);
+    }
+
+    // Doctor has at least one slot before noon
+    public static Specification<Doctor> availableAm() {
+        return (root, query, cb) -> cb.isTrue(root.get("hasAm"));
+    }
+
+    // Doctor has at least one slot at or after noon
+    public static Specification<Doctor> availablePm() {
+        return (root, query, cb) -> cb.isTrue(root.get("hasPm"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.dto;
+
+import java.util.List;
+
+/**
+ * Doctor as served by the reactive directory: the same public fields as the
+ * Doctor entity's JSON (no password, no derived search columns).
+ */
+public class DoctorDTO {
+
+    private final Long id;
+    private final String name;
+    private final String specialty;
+    private final String email;
+    private final String phone;
+    private final List<String> availability;
+
+    public DoctorDTO(Long id,
+                     String name,
+                     String specialty,
+                     String email,
+                     String phone,
+                     List<String> availability) {
+        this.id = id;
+        this.name = name;
+        this.specialty = specialty;
+        this.email = email;
+        this.phone = phone;
+        this.availability = availability;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public List<String> getAvailability() {
+        return availability;
+    }
+}
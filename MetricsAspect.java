@@ -0,0 +1,139 @@
+package com.example.config;
+
+import com.example.repository.AppointmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a timer for every controller endpoint, every public method of the
+ * central services and every AppointmentRepository / DoctorRepository call.
+ *
+ * Tags: class, method, role (admin / doctor / patient / other, from the successful
+ * token check of the current request, "none" before that) and
+ * outcome (1/0/-1 return codes, HTTP status, "exception" or "ok"); app.service also carries
+ * filters (the directory search's filter combination, "none" for other methods).
+ * Published as app.controller / app.service / app.repository, e.g. on /actuator/prometheus.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    // Request attribute holding the role the current request was validated for
+    private static final String ROLE_ATTR = MetricsAspect.class.getName() + ".role";
+
+    private static final Tags NO_FILTERS = Tags.of("filters", "none");
+
+    private final MeterRegistry registry;
+
+    public MetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.example.controller..*) && execution(public * *(..))")
+    public Object timeController(ProceedingJoinPoint pjp) throws Throwable {
+        return record("app.controller", pjp, Tags.empty());
+    }
+
+    @Around("execution(public * *(..)) && ("
+            + "within(com.example.service.Service) || within(com.example.service.DoctorService)"
+            + " || within(com.example.service.AppointmentService) || within(com.example.service.PatientService))")
+    public Object timeService(ProceedingJoinPoint pjp) throws Throwable {
+        String method = pjp.getSignature().getName();
+        Object[] args = pjp.getArgs();
+
+        // Service.validateToken(token, user) tells us which role the request runs as,
+        // but only once the token has actually been accepted for that role
+        if ("validateToken".equals(method) && args.length == 2) {
+            Object result = record("app.service", pjp, NO_FILTERS);
+            if (result instanceof ResponseEntity<?> re && re.getStatusCode().is2xxSuccessful()) {
+                RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+                if (attrs != null) attrs.setAttribute(ROLE_ATTR, roleTag(args[1]), RequestAttributes.SCOPE_REQUEST);
+            }
+            return result;
+        }
+
+        // Which filter combination a directory search used; every app.service timer carries the
+        // tag ("none" elsewhere) because Prometheus needs one tag key set per meter name
+        Tags extra = NO_FILTERS;
+        if (method.startsWith("filterDoctor") && args.length == 3) {
+            extra = Tags.of("filters", filterTag(args));
+        }
+        return record("app.service", pjp, extra);
+    }
+
+    @Around("execution(public * *(..)) && ("
+            + "target(com.example.repository.AppointmentRepository)"
+            + " || target(com.example.repository.DoctorRepository))")
+    public Object timeRepository(ProceedingJoinPoint pjp) throws Throwable {
+        // Inherited methods (findById, save, ...) are declared on CrudRepository; name the real repository
+        String repository = pjp.getTarget() instanceof AppointmentRepository
+                ? "AppointmentRepository" : "DoctorRepository";
+        return record("app.repository", pjp, Tags.of("repository", repository));
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private Object record(String name, ProceedingJoinPoint pjp, Tags extra) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "exception";
+        try {
+            Object result = pjp.proceed();
+            outcome = outcome(result);
+            return result;
+        } finally {
+            Timer.builder(name)
+                    .tags(extra)
+                    .tag("class", pjp.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", pjp.getSignature().getName())
+                    .tag("role", currentRole())
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcome(Object result) {
+        if (result instanceof Integer code) return String.valueOf(code);          // 1 / 0 / -1 codes
+        if (result instanceof ResponseEntity<?> re) return String.valueOf(re.getStatusCode().value());
+        if (result instanceof Boolean b) return b.toString();
+        return "ok";
+    }
+
+    private static String currentRole() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        Object role = attrs == null ? null : attrs.getAttribute(ROLE_ATTR, RequestAttributes.SCOPE_REQUEST);
+        return role == null ? "none" : role.toString();
+    }
+
+    // The role comes from a path variable; collapse it to a fixed set so callers can't mint tag values
+    private static String roleTag(Object user) {
+        if (!(user instanceof String s)) return "other";
+        return switch (s.toLowerCase()) {
+            case "admin", "doctor", "patient" -> s.toLowerCase();
+            default -> "other";
+        };
+    }
+
+    private static String filterTag(Object[] args) {
+        StringBuilder sb = new StringBuilder();
+        String[] labels = {"name", "specialty", "time"};
+        for (int i = 0; i < 3; i++) {
+            if (args[i] instanceof String s && !s.isBlank()) {
+                if (sb.length() > 0) sb.append('+');
+                sb.append(labels[i]);
+            }
+        }
+        return sb.length() == 0 ? "none" : sb.toString();
+    }
+}
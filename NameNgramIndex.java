@@ -0,0 +1,124 @@
+package com.example.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process trigram index over person names (case-insensitive substring search).
+ * A query is answered by intersecting the posting lists of its trigrams and then
+ * confirming the match against the stored name; queries shorter than a trigram
+ * fall back to scanning the stored names, which never leaves memory either.
+ */
+public class NameNgramIndex {
+
+    private static final int N = 3;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    /**
+     * Adds or replaces the name indexed for an id.
+     */
+    public void put(Long id, String name) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            String normalized = normalize(name);
+            if (normalized.isEmpty()) return;
+            names.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the index as fully loaded; until then search() returns null.
+     */
+    public void markReady() {
+        this.ready = true;
+    }
+
+    /**
+     * Ids whose name contains the query (case-insensitive),
+     * or null if the index is not loaded yet and the caller should query the database.
+     */
+    public Set<Long> search(String query) {
+        if (!ready) return null;
+        String q = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (q.isEmpty()) return new HashSet<>(names.keySet());
+
+            Collection<Long> candidates;
+            if (q.length() < N) {
+                candidates = names.keySet();
+            } else {
+                // Intersect posting lists, smallest first
+                List<Set<Long>> lists = new ArrayList<>();
+                for (String gram : grams(q)) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids == null) return new HashSet<>();
+                    lists.add(ids);
+                }
+                lists.sort(Comparator.comparingInt(Set::size));
+                Set<Long> acc = new HashSet<>(lists.get(0));
+                for (int i = 1; i < lists.size() && !acc.isEmpty(); i++) {
+                    acc.retainAll(lists.get(i));
+                }
+                candidates = acc;
+            }
+
+            // Trigram hits can be false positives ("abcxbcd" has every gram of "abcd")
+            Set<Long> out = new HashSet<>();
+            for (Long id : candidates) {
+                if (names.get(id).contains(q)) out.add(id);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private void unindex(Long id) {
+        String old = names.remove(id);
+        if (old == null) return;
+        for (String gram : grams(old)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    private static Set<String> grams(String s) {
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + N <= s.length(); i++) {
+            out.add(s.substring(i, i + N));
+        }
+        return out;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
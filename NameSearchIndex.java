@@ -0,0 +1,158 @@
+package com.example.service;
+
+import com.example.repository.DoctorRepository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trigram name index for doctors, kept current by DoctorService (save / update / delete)
+ * and rebuilt from the database every app.name-index.refresh-minutes, so writes made on
+ * other instances or directly in the database show up within that interval.
+ * Name filters become id-set lookups instead of leading-wildcard LIKE scans.
+ */
+@Component
+public class NameSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(NameSearchIndex.class);
+
+    // Above this many matches an IN (...) list costs more than the LIKE it replaces
+    public static final int MAX_ID_FILTER = 1_000;
+
+    private final DoctorRepository doctorRepository;
+    private final long refreshMinutes;
+
+    // Swapped for a freshly built index on every rebuild; searches never see a half-built one
+    private volatile NameNgramIndex doctors = new NameNgramIndex();
+
+    // Live writes made while a rebuild is reading the database; replayed onto the new index
+    // before it is swapped in so they are not lost. Guarded by writeLock.
+    private List<PendingWrite> duringRebuild;
+
+    // A lock rather than synchronized so the rebuild's swap doesn't pin virtual threads
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "name-index-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public NameSearchIndex(DoctorRepository doctorRepository,
+                           @Value("${app.name-index.refresh-minutes:10}") long refreshMinutes) {
+        this.doctorRepository = doctorRepository;
+        this.refreshMinutes = Math.max(1, refreshMinutes);
+    }
+
+    // A failed first load must neither fail startup nor leave the index unscheduled; until a
+    // rebuild succeeds, searches fall back to the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuildQuietly();
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Builds a new index from the database and swaps it in.
+     */
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            duringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        NameNgramIndex fresh = new NameNgramIndex();
+        try {
+            for (Object[] row : doctorRepository.findAllIdAndName()) {
+                fresh.put((Long) row[0], (String) row[1]);
+            }
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                duringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+
+        writeLock.lock();
+        try {
+            // Writes that raced with the load win over what it read
+            for (PendingWrite w : duringRebuild) {
+                if (w.name() == null) fresh.remove(w.id());
+                else fresh.put(w.id(), w.name());
+            }
+            fresh.markReady();
+            doctors = fresh;
+            duringRebuild = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void putDoctor(Long id, String name) {
+        if (id == null) return;
+        apply(new PendingWrite(id, name == null ? "" : name));
+    }
+
+    public void removeDoctor(Long id) {
+        if (id == null) return;
+        apply(new PendingWrite(id, null));
+    }
+
+    /**
+     * Ids of doctors whose name contains the query, or null if the caller should
+     * fall back to a database name filter (index still loading, or too many matches).
+     */
+    public Set<Long> doctorIdsMatching(String name) {
+        Set<Long> ids = doctors.search(name);
+        return ids == null || ids.size() > MAX_ID_FILTER ? null : ids;
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private void apply(PendingWrite w) {
+        writeLock.lock();
+        try {
+            if (w.name() == null) doctors.remove(w.id());
+            else doctors.put(w.id(), w.name());
+            if (duringRebuild != null) duringRebuild.add(w);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Keep serving the previous index; the next run tries again
+            log.warn("Doctor name index rebuild failed", e);
+        }
+    }
+
+    // name == null means the doctor was removed
+    private record PendingWrite(Long id, String name) { }
+}
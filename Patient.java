@@ -1,4 +1,8 @@
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_patient_email", columnList = "email", unique = true),
+        @Index(name = "idx_patient_phone", columnList = "phone")
+})
 class Patient {
 
     @Id
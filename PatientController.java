@@ -37,6 +37,20 @@ public class PatientController {
         return patientService.getPatientDetails(token);
     }
 
+    /**
+     * 1b) Get Patient Dashboard (details, upcoming/past appointments, recent prescriptions)
+     * GET /patient/dashboard/{token}
+     */
+    @GetMapping("/dashboard/{token}")
+    public ResponseEntity<?> getPatientDashboard(@PathVariable String token) {
+        // Validate token for patient role
+        ResponseEntity<Map<String, String>> validation = service.validateToken(token, "patient");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+        return patientService.getPatientDashboard(token);
+    }
+
     /**
      * 2) Create a New Patient
      * POST /patient
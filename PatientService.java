@@ -1,33 +1,52 @@
 package com.example.service;
 
 import com.example.dto.AppointmentDTO;
-import com.example.model.Appointment;
 import com.example.model.Patient;
+import com.example.model.Prescription;
 import com.example.repository.AppointmentRepository;
 import com.example.repository.PatientRepository;
+import com.example.repository.PrescriptionRepository;
 import com.example.security.TokenService; // adjust package if needed
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PatientService {
 
+    // Dashboard: how many recent past visits to attach prescriptions for, and how long to wait overall
+    private static final int DASHBOARD_RECENT_VISITS = 10;
+    private static final long DASHBOARD_TIMEOUT_SECONDS = 10;
+
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
+    private final NameSearchIndex nameIndex;
+    private final PrescriptionRepository prescriptionRepository;
+    private final Executor dashboardExecutor;
+    private final DirectoryCache directoryCache;
 
     public PatientService(PatientRepository patientRepository,
                           AppointmentRepository appointmentRepository,
-                          TokenService tokenService) {
+                          TokenService tokenService,
+                          NameSearchIndex nameIndex,
+                          PrescriptionRepository prescriptionRepository,
+                          @Qualifier("dashboardExecutor") Executor dashboardExecutor,
+                          DirectoryCache directoryCache) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.nameIndex = nameIndex;
+        this.prescriptionRepository = prescriptionRepository;
+        this.dashboardExecutor = dashboardExecutor;
+        this.directoryCache = directoryCache;
     }
 
     /**
@@ -36,7 +55,8 @@ public class PatientService {
      */
     public int createPatient(Patient patient) {
         try {
-            patientRepository.save(patient);
+            Patient saved = patientRepository.save(patient);
+            directoryCache.evictPatient(saved.getId(), saved.getEmail());
             return 1;
         } catch (Exception e) {
             return 0;
@@ -48,27 +68,38 @@ public class PatientService {
      * On mismatch between token email->patient and provided id, returns 401.
      */
     public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token) {
+        if (id == null || token == null || token.isBlank()) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("message", "Invalid request.");
+            return ResponseEntity.badRequest().body(body);
+        }
+        return getPatientAppointment(id, tokenService.parseToken(token));
+    }
+
+    /**
+     * Same as above, for callers that already parsed the token.
+     */
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, TokenClaims claims) {
         Map<String, Object> body = new HashMap<>();
 
-        if (id == null || token == null || token.isBlank()) {
+        if (id == null) {
             body.put("message", "Invalid request.");
             return ResponseEntity.badRequest().body(body);
         }
 
-        String email = tokenService.getEmailFromToken(token);
+        String email = claims == null ? null : claims.getSubject();
         if (email == null || email.isBlank()) {
             body.put("message", "Unauthorized: invalid token.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
         }
 
-        Patient tokenPatient = patientRepository.findByEmail(email);
+        Patient tokenPatient = directoryCache.patientByEmail(email);
         if (tokenPatient == null || !Objects.equals(tokenPatient.getId(), id)) {
             body.put("message", "Unauthorized: token does not match requested patient.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
         }
 
-        List<Appointment> appts = appointmentRepository.findByPatientId(id);
-        List<AppointmentDTO> dtoList = appts.stream().map(this::toDTO).collect(Collectors.toList());
+        List<AppointmentDTO> dtoList = appointmentRepository.findByPatientId(id);
 
         body.put("appointments", dtoList);
         return ResponseEntity.ok(body);
@@ -96,9 +127,8 @@ public class PatientService {
             return ResponseEntity.badRequest().body(body);
         }
 
-        List<Appointment> appts =
+        List<AppointmentDTO> dtoList =
                 appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, status);
-        List<AppointmentDTO> dtoList = appts.stream().map(this::toDTO).collect(Collectors.toList());
 
         body.put("appointments", dtoList);
         return ResponseEntity.ok(body);
@@ -115,9 +145,13 @@ public class PatientService {
         }
         String doctorName = name == null ? "" : name.trim();
 
-        List<Appointment> appts =
-                appointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId);
-        List<AppointmentDTO> dtoList = appts.stream().map(this::toDTO).collect(Collectors.toList());
+        // Resolve the name through the in-memory index when it can answer
+        Set<Long> doctorIds = nameIndex.doctorIdsMatching(doctorName);
+        List<AppointmentDTO> dtoList = doctorIds == null
+                ? appointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId)
+                : doctorIds.isEmpty()
+                ? Collections.emptyList()
+                : appointmentRepository.findByPatientIdAndDoctorIdIn(patientId, doctorIds);
 
         body.put("appointments", dtoList);
         return ResponseEntity.ok(body);
@@ -140,9 +174,12 @@ public class PatientService {
 
         String doctorName = name == null ? "" : name.trim();
 
-        List<Appointment> appts =
-                appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status);
-        List<AppointmentDTO> dtoList = appts.stream().map(this::toDTO).collect(Collectors.toList());
+        Set<Long> doctorIds = nameIndex.doctorIdsMatching(doctorName);
+        List<AppointmentDTO> dtoList = doctorIds == null
+                ? appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status)
+                : doctorIds.isEmpty()
+                ? Collections.emptyList()
+                : appointmentRepository.findByPatientIdAndStatusAndDoctorIdIn(patientId, status, doctorIds);
 
         body.put("appointments", dtoList);
         return ResponseEntity.ok(body);
@@ -165,50 +202,74 @@ public class PatientService {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
         }
 
-        Patient patient = patientRepository.findByEmail(email);
+        Patient patient = directoryCache.patientByEmail(email);
         if (patient == null) {
             body.put("message", "Patient not found.");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
         }
 
-        // Safety: don't return password or other sensitive info
+        // Password is write-only in JSON; the instance is shared with DirectoryCache, so don't mutate it
+        body.put("patient", patient);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 7) Whole patient dashboard in one call.
+     * Resolves the patient once from the token, then loads upcoming and past appointments
+     * concurrently, and the prescriptions of the most recent past visits (Mongo) as soon as
+     * the past list is in, so the response takes about as long as the slowest branch.
+     *
+     * Returns: { "patient", "upcoming": List<AppointmentDTO>, "past": List<AppointmentDTO>,
+     *            "prescriptions": List<Prescription> }
+     */
+    public ResponseEntity<Map<String, Object>> getPatientDashboard(String token) {
+        Map<String, Object> body = new HashMap<>();
+        if (token == null || token.isBlank()) {
+            body.put("message", "Invalid token.");
+            return ResponseEntity.badRequest().body(body);
+        }
+
+        String email = tokenService.getEmailFromToken(token);
+        if (email == null || email.isBlank()) {
+            body.put("message", "Unauthorized: invalid token.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+        }
+
+        Patient patient = directoryCache.patientByEmail(email);
+        if (patient == null) {
+            body.put("message", "Patient not found.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+        }
+        Long id = patient.getId();
+
+        // status 0 = scheduled (upcoming), 1 = completed (past)
+        CompletableFuture<List<AppointmentDTO>> upcoming = CompletableFuture.supplyAsync(
+                () -> appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 0), dashboardExecutor);
+        CompletableFuture<List<AppointmentDTO>> past = CompletableFuture.supplyAsync(
+                () -> appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 1), dashboardExecutor);
+        CompletableFuture<List<Prescription>> prescriptions = past.thenApplyAsync(visits -> {
+            if (visits.isEmpty()) return Collections.<Prescription>emptyList();
+            // Most recent visits are at the end (ascending order)
+            List<Long> recentIds = visits.subList(Math.max(0, visits.size() - DASHBOARD_RECENT_VISITS), visits.size())
+                                         .stream().map(AppointmentDTO::getId).toList();
+            return prescriptionRepository.findByAppointmentIdIn(recentIds);
+        }, dashboardExecutor);
+
         try {
-            patient.setPassword(null);
-        } catch (Exception ignored) {
-            // if Patient has no password field setter, ignore
+            CompletableFuture.allOf(upcoming, prescriptions).get(DASHBOARD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            upcoming.cancel(true);
+            prescriptions.cancel(true);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            body.put("message", "Failed to load dashboard.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
         }
 
+        // Password is write-only in JSON; the instance is shared with DirectoryCache, so don't mutate it
         body.put("patient", patient);
+        body.put("upcoming", upcoming.join());
+        body.put("past", past.join());
+        body.put("prescriptions", prescriptions.join());
         return ResponseEntity.ok(body);
     }
-
-    // -----------------------------
-    // Helpers
-    // -----------------------------
-
-    private AppointmentDTO toDTO(Appointment a) {
-        Long id = a.getId();
-        Long doctorId = a.getDoctor() != null ? a.getDoctor().getId() : null;
-        String doctorName = a.getDoctor() != null ? a.getDoctor().getName() : null;
-        Long patientId = a.getPatient() != null ? a.getPatient().getId() : null;
-        String patientName = a.getPatient() != null ? a.getPatient().getName() : null;
-        String patientEmail = a.getPatient() != null ? a.getPatient().getEmail() : null;
-        String patientPhone = a.getPatient() != null ? a.getPatient().getPhone() : null;
-        String patientAddress = a.getPatient() != null ? a.getPatient().getAddress() : null;
-        LocalDateTime appointmentTime = a.getAppointmentTime();
-        int status = a.getStatus();
-
-        return new AppointmentDTO(
-                id,
-                doctorId,
-                doctorName,
-                patientId,
-                patientName,
-                patientEmail,
-                patientPhone,
-                patientAddress,
-                appointmentTime,
-                status
-        );
-    }
 }
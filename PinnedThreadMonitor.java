@@ -0,0 +1,53 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Streams the JFR jdk.VirtualThreadPinned event: a virtual thread that blocked
+ * while holding a monitor (synchronized) and kept its carrier thread busy.
+ * Each occurrence is counted (app.virtual_threads.pinned) and logged with its top frame.
+ */
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Counter pinned;
+    private final long thresholdMs;
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(MeterRegistry registry, long thresholdMs) {
+        this.pinned = Counter.builder("app.virtual_threads.pinned").register(registry);
+        this.thresholdMs = thresholdMs;
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) stream.close();
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.increment();
+        String where = "unknown";
+        if (event.getStackTrace() != null && !event.getStackTrace().getFrames().isEmpty()) {
+            RecordedFrame top = event.getStackTrace().getFrames().get(0);
+            where = top.getMethod().getType().getName() + "." + top.getMethod().getName() + ":" + top.getLineNumber();
+        }
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), where);
+    }
+}
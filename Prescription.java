@@ -1,8 +1,9 @@
-@Entity
+@Document(collection = "prescriptions")
+// Lookups are always by appointment (single or IN); without this every read is a collection scan
+@CompoundIndex(name = "idx_prescription_appointment", def = "{'appointmentId': 1, '_id': 1}")
 public class Prescription{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) 
     private String id;
     
     @Size(min = 3, max = 20)
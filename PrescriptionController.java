@@ -9,8 +9,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("${api.path}" + "prescription")
@@ -68,4 +71,51 @@ public class PrescriptionController {
         }
         return ResponseEntity.ok(Map.of("prescriptions", prescriptions));
     }
+
+    /**
+     * 3) Save Many Prescriptions
+     * POST /prescription/batch/{token}
+     * One unordered bulk write; returns { "message", "saved", "errors": [{ "index", "message" }] }.
+     */
+    @PostMapping("/batch/{token}")
+    public ResponseEntity<Map<String, Object>> savePrescriptions(@PathVariable String token,
+                                                                 @RequestBody List<Prescription> prescriptions) {
+        var validation = service.validateToken(token, "doctor");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return ResponseEntity.status(validation.getStatusCode()).body(new HashMap<>(validation.getBody()));
+        }
+
+        if (prescriptions == null || prescriptions.isEmpty() || prescriptions.size() > PrescriptionService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + PrescriptionService.MAX_BATCH_SIZE + " prescriptions."));
+        }
+
+        Map<String, Object> body = new HashMap<>(prescriptionService.savePrescriptions(prescriptions));
+        int saved = (int) body.get("saved");
+        body.put("message", saved + " of " + prescriptions.size() + " prescriptions saved");
+        HttpStatus status = saved == prescriptions.size() ? HttpStatus.CREATED
+                : saved > 0 ? HttpStatus.MULTI_STATUS : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(body);
+    }
+
+    /**
+     * 4) Get Prescriptions for Many Appointments
+     * GET /prescription/batch/{token}?appointmentIds=1,2,3
+     * Returns { "prescriptions": { appointmentId: [...] } }; one query for a whole day's list.
+     */
+    @GetMapping("/batch/{token}")
+    public ResponseEntity<?> getByAppointments(@PathVariable String token,
+                                               @RequestParam List<Long> appointmentIds) {
+        var validation = service.validateToken(token, "doctor");
+        if (!validation.getStatusCode().is2xxSuccessful()) {
+            return validation;
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(appointmentIds);
+        if (ids.isEmpty() || ids.size() > PrescriptionService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Provide between 1 and " + PrescriptionService.MAX_BATCH_SIZE + " appointment ids."));
+        }
+        return ResponseEntity.ok(Map.of("prescriptions", prescriptionService.getPrescriptions(ids)));
+    }
 }
@@ -4,6 +4,7 @@ import com.example.model.Prescription;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +12,7 @@ public interface PrescriptionRepository extends MongoRepository<Prescription, St
 
     // Find prescriptions by appointment ID
     List<Prescription> findByAppointmentId(Long appointmentId);
+
+    // Find prescriptions for several appointments in one query
+    List<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
 }
@@ -0,0 +1,145 @@
+package com.example.service;
+
+import com.example.model.Prescription;
+import com.example.repository.PrescriptionRepository;
+
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class PrescriptionService {
+
+    // Upper bound for one batch save request
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private final PrescriptionRepository prescriptionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               MongoTemplate mongoTemplate,
+                               Validator validator) {
+        this.prescriptionRepository = prescriptionRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+    }
+
+    /**
+     * Creates the indexes declared on Prescription (auto index creation is off by default).
+     * ensureIndex is a no-op when the index already exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Prescription.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Prescription.class)
+                .forEach(indexOps::ensureIndex);
+    }
+
+    /**
+     * 1) Saves one prescription.
+     * @return 1 on success, 0 on failure
+     */
+    public int savePrescription(Prescription prescription) {
+        try {
+            if (prescription == null) return 0;
+            prescriptionRepository.save(prescription);
+            return 1;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 2) Prescriptions for one appointment.
+     */
+    public List<Prescription> getPrescription(Long appointmentId) {
+        if (appointmentId == null) return Collections.emptyList();
+        return prescriptionRepository.findByAppointmentId(appointmentId);
+    }
+
+    /**
+     * 3) Saves many prescriptions with one unordered bulk insert.
+     * Invalid entries are skipped up front; a failing document does not stop the others.
+     * Returns { "saved": n, "errors": [{ "index", "message" }] } with indexes into the request list.
+     */
+    public Map<String, Object> savePrescriptions(List<Prescription> prescriptions) {
+        Map<String, Object> result = new HashMap<>();
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        // Positions in the request list of the documents actually sent
+        List<Integer> sentIndexes = new ArrayList<>();
+        List<Prescription> valid = new ArrayList<>();
+        for (int i = 0; i < prescriptions.size(); i++) {
+            String error = validate(prescriptions.get(i));
+            if (error != null) {
+                errors.add(error(i, error));
+            } else {
+                sentIndexes.add(i);
+                valid.add(prescriptions.get(i));
+            }
+        }
+
+        int saved = 0;
+        if (!valid.isEmpty()) {
+            try {
+                saved = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)
+                                     .insert(valid)
+                                     .execute()
+                                     .getInsertedCount();
+            } catch (BulkOperationException e) {
+                saved = e.getResult().getInsertedCount();
+                for (BulkWriteError writeError : e.getErrors()) {
+                    errors.add(error(sentIndexes.get(writeError.getIndex()), writeError.getMessage()));
+                }
+            }
+        }
+
+        result.put("saved", saved);
+        result.put("errors", errors);
+        return result;
+    }
+
+    /**
+     * 4) Prescriptions for many appointments in one query, grouped by appointment id.
+     * Appointments without a prescription are absent from the map.
+     */
+    public Map<Long, List<Prescription>> getPrescriptions(Collection<Long> appointmentIds) {
+        Map<Long, List<Prescription>> byAppointment = new LinkedHashMap<>();
+        if (appointmentIds == null || appointmentIds.isEmpty()) return byAppointment;
+
+        for (Prescription p : prescriptionRepository.findByAppointmentIdIn(appointmentIds)) {
+            byAppointment.computeIfAbsent(p.getAppointmentId(), k -> new ArrayList<>()).add(p);
+        }
+        return byAppointment;
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private String validate(Prescription prescription) {
+        if (prescription == null) return "Empty prescription";
+        Set<ConstraintViolation<Prescription>> violations = validator.validate(prescription);
+        if (violations.isEmpty()) return null;
+        ConstraintViolation<Prescription> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    private static Map<String, Object> error(int index, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("index", index);
+        error.put("message", message);
+        return error;
+    }
+}
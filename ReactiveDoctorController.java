@@ -0,0 +1,125 @@
+package com.example.controller;
+
+import com.example.dto.DoctorDTO;
+import com.example.model.Prescription;
+import com.example.repository.ReactivePrescriptionRepository;
+import com.example.service.ReactiveDoctorService;
+import com.example.service.Service; // central validation/filtering service
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking variants of the public doctor read endpoints, enabled with app.reactive.enabled=true.
+ * Lists are streamed as application/x-ndjson, one doctor per line, as rows arrive.
+ *
+ * Token checks still go through the blocking Service.validateToken (JPA), so they are moved
+ * off the request thread onto the bounded elastic scheduler.
+ */
+@RestController
+@RequestMapping("${api.path}" + "reactive")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveDoctorController {
+
+    // Upper bound for one prescription lookup
+    private static final int MAX_APPOINTMENT_IDS = 500;
+
+    private final ReactiveDoctorService doctorService;
+    private final ReactivePrescriptionRepository prescriptionRepository;
+    private final Service service;
+
+    public ReactiveDoctorController(ReactiveDoctorService doctorService,
+                                    ReactivePrescriptionRepository prescriptionRepository,
+                                    Service service) {
+        this.doctorService = doctorService;
+        this.prescriptionRepository = prescriptionRepository;
+        this.service = service;
+    }
+
+    /**
+     * 1) Get List of Doctors
+     * GET /reactive/doctor
+     */
+    @GetMapping(value = "/doctor", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DoctorDTO> getDoctors() {
+        return doctorService.getDoctors();
+    }
+
+    /**
+     * 2) Filter Doctors
+     * GET /reactive/doctor/filter/{name}/{time}/{speciality}
+     */
+    @GetMapping(value = "/doctor/filter/{name}/{time}/{speciality}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DoctorDTO> filterDoctors(@PathVariable String name,
+                                         @PathVariable String time,
+                                         @PathVariable("speciality") String specialty) {
+        return doctorService.filterDoctors(
+                "null".equalsIgnoreCase(name) ? "" : name,
+                "null".equalsIgnoreCase(specialty) ? "" : specialty,
+                "null".equalsIgnoreCase(time) ? "" : time
+        );
+    }
+
+    /**
+     * 3) Get Doctor Availability
+     * GET /reactive/doctor/availability/{user}/{doctorId}/{date}/{token}
+     */
+    @GetMapping("/doctor/availability/{user}/{doctorId}/{date}/{token}")
+    public Mono<ResponseEntity<Map<String, Object>>> getDoctorAvailability(@PathVariable String user,
+                                                                      @PathVariable Long doctorId,
+                                                                      @PathVariable String date,
+                                                                      @PathVariable String token) {
+        final LocalDate targetDate;
+        try {
+            targetDate = LocalDate.parse(date); // expects yyyy-MM-dd
+        } catch (Exception e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.<String, Object>of("message", "Invalid date format. Use yyyy-MM-dd.")));
+        }
+
+        return validate(token, user).flatMap(validation -> {
+            if (!validation.getStatusCode().is2xxSuccessful()) {
+                return Mono.just(ResponseEntity.status(validation.getStatusCode())
+                                               .body(new HashMap<String, Object>(validation.getBody())));
+            }
+            return doctorService.getDoctorAvailability(doctorId, targetDate)
+                                .map(slots -> ResponseEntity.ok(Map.<String, Object>of("availability", slots)));
+        });
+    }
+
+    /**
+     * 4) Get Prescriptions for Many Appointments
+     * GET /reactive/prescription/{token}?appointmentIds=1,2,3
+     * Only doctors; streamed from the reactive Mongo driver.
+     */
+    @GetMapping(value = "/prescription/{token}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<Prescription>>> getPrescriptions(@PathVariable String token,
+                                                                     @RequestParam List<Long> appointmentIds) {
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(appointmentIds);
+        if (ids.isEmpty() || ids.size() > MAX_APPOINTMENT_IDS) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return validate(token, "doctor").map(validation -> validation.getStatusCode().is2xxSuccessful()
+                ? ResponseEntity.ok(prescriptionRepository.findByAppointmentIdIn(ids))
+                : ResponseEntity.status(validation.getStatusCode()).<Flux<Prescription>>build());
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private Mono<ResponseEntity<Map<String, String>>> validate(String token, String user) {
+        return Mono.fromCallable(() -> service.validateToken(token, user))
+                   .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.repository;
+
+import com.example.dto.DoctorDTO;
+
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Non-blocking (R2DBC) reads for the reactive doctor directory.
+ * Same tables and search columns as the JPA mapping (names pinned on Doctor / Appointment); doctors come back in id order with
+ * their availability joined in, so each doctor is emitted as soon as its rows have arrived.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveDoctorQueries {
+
+    private static final String SELECT_DOCTORS =
+            "SELECT d.id, d.name, d.speciality AS specialty, d.email, d.phone, av.available_times AS availability "
+            + "FROM doctor d LEFT JOIN doctor_available_times av ON av.doctor_id = d.id ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveDoctorQueries(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // 1) Every doctor, streamed in id order
+    public Flux<DoctorDTO> findAll() {
+        return toDoctors(databaseClient.sql(SELECT_DOCTORS + "ORDER BY d.id"));
+    }
+
+    // 2) Directory search; arguments are already normalized (see DoctorService.DoctorFilter).
+    //    ids, when given, replace the name LIKE (in-memory name index hits).
+    public Flux<DoctorDTO> findFiltered(String name, Collection<Long> ids, String specialty, boolean am, boolean pm) {
+        StringJoiner where = new StringJoiner(" AND ", "WHERE ", " ").setEmptyValue("");
+        Map<String, Object> params = new HashMap<>();
+        if (ids != null) {
+            where.add("d.id IN (:ids)");
+            params.put("ids", ids);
+        } else if (!name.isEmpty()) {
+            where.add("d.name_normalized LIKE :name ESCAPE '\\'");
+            params.put("name", "%" + name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (!specialty.isEmpty()) {
+            where.add("d.specialty_normalized = :specialty");
+            params.put("specialty", specialty);
+        }
+        if (am) where.add("d.has_am = TRUE");
+        if (pm) where.add("d.has_pm = TRUE");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SELECT_DOCTORS + where + "ORDER BY d.id");
+        for (Map.Entry<String, Object> p : params.entrySet()) {
+            spec = spec.bind(p.getKey(), p.getValue());
+        }
+        return toDoctors(spec);
+    }
+
+    // 3) Profile slots ("HH:mm") of one doctor
+    public Flux<String> findAvailability(Long doctorId) {
+        return databaseClient.sql("SELECT available_times FROM doctor_available_times WHERE doctor_id = :doctorId")
+                             .bind("doctorId", doctorId)
+                             .map(row -> row.get("available_times", String.class))
+                             .all();
+    }
+
+    // 4) Booked appointment times of one doctor in [from, to)
+    public Flux<LocalDateTime> findBookedTimes(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        return databaseClient.sql("SELECT appointment_time FROM appointment "
+                                  + "WHERE doctor_id = :doctorId AND appointment_time >= :from AND appointment_time < :to")
+                             .bind("doctorId", doctorId)
+                             .bind("from", from)
+                             .bind("to", to)
+                             .map(row -> row.get("appointment_time", LocalDateTime.class))
+                             .all();
+    }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    // One row per (doctor, slot): fold consecutive rows of the same doctor into one DTO
+    private static Flux<DoctorDTO> toDoctors(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map((row, meta) -> new DoctorRow(row))
+                   .all()
+                   .bufferUntilChanged(DoctorRow::id)
+                   .map(rows -> {
+                       DoctorRow first = rows.get(0);
+                       List<String> availability = rows.stream().map(DoctorRow::slot).filter(Objects::nonNull).toList();
+                       return new DoctorDTO(first.id(), first.name(), first.specialty(), first.email(), first.phone(),
+                                            availability);
+                   });
+    }
+
+    private record DoctorRow(Long id, String name, String specialty, String email, String phone, String slot) {
+        DoctorRow(Row row) {
+            this(row.get("id", Long.class), row.get("name", String.class), row.get("specialty", String.class),
+                 row.get("email", String.class), row.get("phone", String.class), row.get("availability", String.class));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.service;
+
+import com.example.dto.DoctorDTO;
+import com.example.repository.ReactiveDoctorQueries;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Read-only doctor directory on the reactive stack (R2DBC).
+ * Filtering follows DoctorService.filterDoctors exactly: same DoctorFilter normalization,
+ * same in-memory name index with the LIKE fallback, same AM/PM columns.
+ */
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveDoctorService {
+
+    private static final DateTimeFormatter SLOT_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final ReactiveDoctorQueries doctorQueries;
+    private final NameSearchIndex nameIndex;
+
+    public ReactiveDoctorService(ReactiveDoctorQueries doctorQueries, NameSearchIndex nameIndex) {
+        this.doctorQueries = doctorQueries;
+        this.nameIndex = nameIndex;
+    }
+
+    /**
+     * Every doctor, in id order.
+     */
+    public Flux<DoctorDTO> getDoctors() {
+        return doctorQueries.findAll();
+    }
+
+    /**
+     * Filter by any combination of name (partial), specialty (exact) and AM/PM availability.
+     */
+    public Flux<DoctorDTO> filterDoctors(String name, String specialty, String amOrPm) {
+        DoctorService.DoctorFilter filter = DoctorService.DoctorFilter.of(name, specialty, amOrPm);
+        if (!filter.isSatisfiable()) return Flux.empty();
+
+        Set<Long> ids = null;
+        if (!filter.name().isEmpty()) {
+            // In-memory lookup, no I/O; null means fall back to LIKE
+            ids = nameIndex.doctorIdsMatching(filter.name());
+            if (ids != null && ids.isEmpty()) return Flux.empty();
+        }
+        return doctorQueries.findFiltered(filter.name(), ids, filter.specialty(),
+                                          "AM".equals(filter.half()), "PM".equals(filter.half()));
+    }
+
+    /**
+     * Free slots ("HH:mm", ascending) for a doctor on a given date; same result as
+     * DoctorService.getDoctorAvailability. Profile slots and bookings are read concurrently.
+     */
+    public Mono<List<String>> getDoctorAvailability(Long doctorId, LocalDate date) {
+        if (doctorId == null || date == null) return Mono.just(Collections.emptyList());
+
+        Mono<List<String>> offered = doctorQueries.findAvailability(doctorId).collectList();
+        Mono<Set<LocalTime>> booked = doctorQueries
+                .findBookedTimes(doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay())
+                .map(t -> t.toLocalTime().withSecond(0).withNano(0))
+                .collect(HashSet::new, Set::add);
+
+        return Mono.zip(offered, booked).map(t -> {
+            TreeSet<LocalTime> free = new TreeSet<>();
+            for (String s : t.getT1()) {
+                try {
+                    free.add(LocalTime.parse(s.trim(), SLOT_FMT));
+                } catch (Exception ignored) {
+                    // If a slot isn't parseable as HH:mm, skip it
+                }
+            }
+            free.removeAll(t.getT2());
+            return free.stream().map(SLOT_FMT::format).toList();
+        });
+    }
+}
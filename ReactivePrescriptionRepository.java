@@ -0,0 +1,15 @@
+package com.example.repository;
+
+import com.example.model.Prescription;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactivePrescriptionRepository extends ReactiveMongoRepository<Prescription, String> {
+
+    // Prescriptions for several appointments, streamed as the driver returns them
+    Flux<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
+}
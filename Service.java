@@ -1,5 +1,6 @@
 package com.example.service;
 
+import com.example.dto.BookingCheck;
 import com.example.model.Admin;
 import com.example.model.Appointment;
 import com.example.model.Doctor;
@@ -14,7 +15,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
@@ -26,21 +26,22 @@ public class Service {
     private final PatientRepository patientRepository;
     private final DoctorService doctorService;
     private final PatientService patientService;
-
-    private static final DateTimeFormatter SLOT_FMT = DateTimeFormatter.ofPattern("HH:mm");
+    private final DirectoryCache directoryCache;
 
     public Service(TokenService tokenService,
                    AdminRepository adminRepository,
                    DoctorRepository doctorRepository,
                    PatientRepository patientRepository,
                    DoctorService doctorService,
-                   PatientService patientService) {
+                   PatientService patientService,
+                   DirectoryCache directoryCache) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
+        this.directoryCache = directoryCache;
     }
 
     // ------------------------------------------------------------
@@ -95,7 +96,7 @@ public class Service {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
         }
 
-        String token = tokenService.generateToken(admin.getId(), "admin");
+        String token = tokenService.generateToken(admin.getUsername(), admin.getId(), "admin");
         body.put("token", token);
         body.put("message", "Login successful.");
         return ResponseEntity.ok(body);
@@ -107,34 +108,31 @@ public class Service {
     /**
      * Filters doctors by name, specialty, and available AM/PM time.
      * Delegates to DoctorService for the appropriate combination.
+     * Without any filter only the first keyset page is returned, with "nextCursor" as in
+     * GET /doctor/page; the full directory is streamed by GET /doctor instead.
      */
     public Map<String, Object> filterDoctor(String name, String specialty, String time) {
-        boolean hasName = name != null && !name.trim().isEmpty();
-        boolean hasSpec = specialty != null && !specialty.trim().isEmpty();
-        boolean hasTime = time != null && !time.trim().isEmpty();
-
-        if (hasName && hasSpec && hasTime) {
-            return doctorService.filterDoctorsByNameSpecilityandTime(name, specialty, time);
-        } else if (hasName && hasTime) {
-            return doctorService.filterDoctorByNameAndTime(name, time);
-        } else if (hasName && hasSpec) {
-            return doctorService.filterDoctorByNameAndSpecility(name, specialty);
-        } else if (hasSpec && hasTime) {
-            return doctorService.filterDoctorByTimeAndSpecility(specialty, time);
-        } else if (hasSpec) {
-            return doctorService.filterDoctorBySpecility(specialty);
-        } else if (hasTime) {
-            return doctorService.filterDoctorsByTime(time);
-        } else if (hasName) {
-            return doctorService.findDoctorByName(name);
+        if (hasDoctorFilter(name, specialty, time)) {
+            // One indexed query handles every combination of filters
+            return doctorService.filterDoctors(name, specialty, time);
         } else {
-            // No filters: return all doctors
             Map<String, Object> result = new HashMap<>();
-            result.put("doctors", doctorService.getDoctors());
+            List<Doctor> page = doctorService.getDoctorsPage(null, DoctorService.DEFAULT_PAGE_SIZE);
+            result.put("doctors", page);
+            result.put("nextCursor", page.size() < DoctorService.DEFAULT_PAGE_SIZE ? null : page.get(page.size() - 1).getId());
             return result;
         }
     }
 
+    /**
+     * Whether any of the directory filters is set (blank means unset).
+     */
+    public static boolean hasDoctorFilter(String name, String specialty, String time) {
+        return (name != null && !name.trim().isEmpty())
+                || (specialty != null && !specialty.trim().isEmpty())
+                || (time != null && !time.trim().isEmpty());
+    }
+
     // ------------------------------------------------------------
     // validateAppointment
     // ------------------------------------------------------------
@@ -143,20 +141,33 @@ public class Service {
      * @return 1 = valid time, 0 = unavailable time, -1 = doctor doesn't exist
      */
     public int validateAppointment(Appointment appointment) {
-        if (appointment == null || appointment.getDoctor() == null || appointment.getDoctor().getId() == null
-                || appointment.getAppointmentTime() == null) {
-            return 0;
-        }
+        return validateAppointment(appointment, checkBooking(appointment));
+    }
 
-        Long docId = appointment.getDoctor().getId();
-        Optional<Doctor> docOpt = doctorRepository.findById(docId);
-        if (docOpt.isEmpty()) return -1;
+    /**
+     * Same as above for a check the caller already ran (see checkBooking).
+     */
+    public int validateAppointment(Appointment appointment, Optional<BookingCheck> check) {
+        if (!isComplete(appointment)) return 0;
+        if (check == null || check.isEmpty()) return -1;
+        return check.get().isSlotFree() ? 1 : 0;
+    }
 
-        var date = appointment.getAppointmentTime().toLocalDate();
-        var timeStr = appointment.getAppointmentTime().toLocalTime().format(SLOT_FMT);
+    /**
+     * Doctor exists, patient exists, slot offered and not taken: one query for the whole booking.
+     * The result is handed on to AppointmentService so it doesn't look anything up again.
+     * Empty if the doctor doesn't exist (or the request lacks a doctor / time).
+     */
+    public Optional<BookingCheck> checkBooking(Appointment appointment) {
+        if (!isComplete(appointment)) return Optional.empty();
+        Long patientId = appointment.getPatient() != null ? appointment.getPatient().getId() : null;
+        return doctorRepository.checkBooking(appointment.getDoctor().getId(), patientId,
+                                             appointment.getAppointmentTime());
+    }
 
-        List<String> available = doctorService.getDoctorAvailability(docId, date);
-        return available.contains(timeStr) ? 1 : 0;
+    private static boolean isComplete(Appointment appointment) {
+        return appointment != null && appointment.getDoctor() != null && appointment.getDoctor().getId() != null
+                && appointment.getAppointmentTime() != null;
     }
 
     // ------------------------------------------------------------
@@ -206,7 +217,7 @@ public class Service {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
         }
 
-        String token = tokenService.generateToken(patient.getId(), "patient");
+        String token = tokenService.generateToken(patient.getEmail(), patient.getId(), "patient");
         body.put("token", token);
         body.put("message", "Login successful.");
         return ResponseEntity.ok(body);
@@ -224,11 +235,12 @@ public class Service {
         if (token == null || token.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("message", "Invalid token."));
         }
-        String email = tokenService.getEmailFromToken(token);
+        TokenClaims claims = tokenService.parseToken(token);
+        String email = claims == null ? null : claims.getSubject();
         if (email == null || email.isBlank()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Unauthorized: invalid token."));
         }
-        Patient patient = patientRepository.findByEmail(email);
+        Patient patient = directoryCache.patientByEmail(email);
         if (patient == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Patient not found."));
         }
@@ -245,8 +257,8 @@ public class Service {
             return patientService.filterByDoctor(name.trim(), patientId);
         } else {
             // No filters: return all appointments for this patient
-            // We can reuse patientService.getPatientAppointment to fetch everything safely.
-            return patientService.getPatientAppointment(patientId, token);
+            // Reuse the claims parsed above instead of re-parsing the token.
+            return patientService.getPatientAppointment(patientId, claims);
         }
     }
 
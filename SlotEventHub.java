@@ -0,0 +1,183 @@
+package com.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent slot updates per (doctorId, date) for the booking UI.
+ *
+ * AppointmentService publishes a "taken" / "released" delta on every book, update and cancel;
+ * each subscriber gets the deltas for the one doctor and day it watches, after an initial
+ * "snapshot" of the free slots. Every subscriber has its own bounded queue drained by its own
+ * virtual thread, so a slow client only ever delays itself; when its queue is full it is
+ * disconnected (the browser's EventSource reconnects and gets a fresh snapshot).
+ */
+@Component
+public class SlotEventHub {
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int MAX_SUBSCRIBERS = 10_000;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000;
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final DateTimeFormatter SLOT_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final DoctorSlotIndex slotIndex;
+
+    private final Map<DayKey, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("slot-events-", 0).factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "slot-events-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SlotEventHub(DoctorSlotIndex slotIndex) {
+        this.slotIndex = slotIndex;
+        // Comments keep proxies from closing idle streams and reveal dead connections
+        heartbeat.scheduleAtFixedRate(() -> subscribers.values().forEach(set -> set.forEach(
+                s -> s.offer(SseEmitter.event().comment("ping")))), HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        senders.shutdownNow();
+    }
+
+    // ------------------------------------------------------------
+    // subscribe
+    // ------------------------------------------------------------
+    /**
+     * Opens a stream for one doctor and day, or returns null when the server is at capacity.
+     */
+    public SseEmitter subscribe(Long doctorId, LocalDate date) {
+        if (subscriberCount.incrementAndGet() > MAX_SUBSCRIBERS) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        DayKey key = new DayKey(doctorId, date);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(key, emitter);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        // Register before taking the snapshot so no delta can fall in between
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("doctorId", doctorId);
+        snapshot.put("date", date.toString());
+        snapshot.put("availability", slotIndex.availableSlots(doctorId, date));
+        subscriber.offer(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    // ------------------------------------------------------------
+    // publish
+    // ------------------------------------------------------------
+    public void slotTaken(Long doctorId, LocalDateTime time) {
+        publish(doctorId, time, "taken");
+    }
+
+    public void slotReleased(Long doctorId, LocalDateTime time) {
+        publish(doctorId, time, "released");
+    }
+
+    private void publish(Long doctorId, LocalDateTime time, String state) {
+        if (doctorId == null || time == null) return;
+        Set<Subscriber> watching = subscribers.get(new DayKey(doctorId, time.toLocalDate()));
+        if (watching == null || watching.isEmpty()) return;
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("doctorId", doctorId);
+        delta.put("date", time.toLocalDate().toString());
+        delta.put("time", time.toLocalTime().format(SLOT_FMT));
+        delta.put("state", state);
+        watching.forEach(s -> s.offer(SseEmitter.event().name("slot").data(delta, MediaType.APPLICATION_JSON)));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) return;
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // ------------------------------------------------------------
+    // subscriber
+    // ------------------------------------------------------------
+    private final class Subscriber {
+        private final DayKey key;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        private Subscriber(DayKey key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (removed.get()) return;
+            if (!queue.offer(event)) {
+                // Too far behind: drop the client rather than buffer without bound
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // At most one drain per subscriber runs at a time; SseEmitter.send is not thread-safe
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before the flag reset
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void close() {
+            unsubscribe(this);
+            queue.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // Already completed or connection gone
+            }
+        }
+    }
+
+    private record DayKey(long doctorId, LocalDate date) { }
+}
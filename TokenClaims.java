@@ -0,0 +1,56 @@
+package com.example.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Claims of a verified JWT, parsed once and shared by everything handling the request.
+ */
+public final class TokenClaims {
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+
+    private final String subject;
+    private final Long userId;
+    private final String role;
+    private final Date expiration;
+
+    private TokenClaims(String subject, Long userId, String role, Date expiration) {
+        this.subject = subject;
+        this.userId = userId;
+        this.role = role;
+        this.expiration = expiration;
+    }
+
+    static TokenClaims from(Claims claims) {
+        Object uid = claims.get(USER_ID_CLAIM);
+        Object role = claims.get(ROLE_CLAIM);
+        return new TokenClaims(
+                claims.getSubject(),
+                uid instanceof Number n ? n.longValue() : null,
+                role != null ? role.toString() : null,
+                claims.getExpiration()
+        );
+    }
+
+    /**
+     * Username (admin) or email (doctor/patient).
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+}
@@ -12,16 +12,33 @@ import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 
 @Component
 public class TokenService {
 
+    // Upper bound on verified tokens kept in memory (LRU beyond that)
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    // A verified token is re-checked against the user lookups at least this often, so
+    // patient and admin changes, which don't call evictUser, are picked up without waiting for exp
+    private static final long VERIFIED_TOKEN_TTL_MS = 60 * 1000;
+
+    // Request attribute holding the claims parsed for the current request
+    private static final String PARSED_TOKEN_ATTR = TokenService.class.getName() + ".parsedToken";
+
     private final AdminRepository adminRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final DirectoryCache directoryCache;
 
     // secret loaded from application.properties: jwt.secret=some-very-long-secret-key
     @Value("${jwt.secret}")
@@ -29,17 +46,30 @@ public class TokenService {
 
     private SecretKey signingKey;
 
+    // Built once; JwtParser is immutable and thread-safe
+    private JwtParser jwtParser;
+
+    // "<userType>:<sha-256 of token>" -> verified identity, valid until the token's exp claim
+    // or VERIFIED_TOKEN_TTL_MS, whichever comes first
+    private final BoundedCache<String, VerifiedToken> verifiedTokens =
+            new BoundedCache<>(VERIFIED_TOKEN_CACHE_SIZE);
+
     public TokenService(AdminRepository adminRepository,
                         DoctorRepository doctorRepository,
-                        PatientRepository patientRepository) {
+                        PatientRepository patientRepository,
+                        DirectoryCache directoryCache) {
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
+        this.directoryCache = directoryCache;
     }
 
     @PostConstruct
     private void initKey() {
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     // ------------------------------------------------------------
@@ -50,11 +80,24 @@ public class TokenService {
      * @param identifier username (admin) or email (doctor/patient)
      */
     public String generateToken(String identifier) {
+        return generateToken(identifier, null, null);
+    }
+
+    /**
+     * Generates a JWT token that also carries the user's id and role,
+     * so services can read them without another lookup.
+     * @param identifier username (admin) or email (doctor/patient)
+     * @param userId database id of the user
+     * @param role "admin", "doctor" or "patient"
+     */
+    public String generateToken(String identifier, Long userId, String role) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + 7 * 24 * 60 * 60 * 1000); // 7 days
 
         return Jwts.builder()
                 .setSubject(identifier)
+                .claim(TokenClaims.USER_ID_CLAIM, userId)
+                .claim(TokenClaims.ROLE_CLAIM, role)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .signWith(signingKey, SignatureAlgorithm.HS256)
@@ -68,16 +111,62 @@ public class TokenService {
      * Extracts the identifier (username/email) from a JWT token.
      */
     public String extractIdentifier(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims == null ? null : claims.getSubject();
+    }
+
+    // ------------------------------------------------------------
+    // parseToken
+    // ------------------------------------------------------------
+    /**
+     * Verifies a JWT and returns its claims, or null if invalid/expired.
+     * Within a web request the result is memoized, so the controller, Service and
+     * the downstream services all share a single parse of the same token.
+     */
+    public TokenClaims parseToken(String token) {
+        if (token == null || token.isBlank()) return null;
+
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs != null
+                && attrs.getAttribute(PARSED_TOKEN_ATTR, RequestAttributes.SCOPE_REQUEST) instanceof ParsedToken p
+                && p.token().equals(token)) {
+            return p.claims();
+        }
+
+        TokenClaims claims;
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
-        } catch (JwtException e) {
-            return null;
+            claims = TokenClaims.from(jwtParser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            claims = null;
+        }
+
+        if (attrs != null) {
+            attrs.setAttribute(PARSED_TOKEN_ATTR, new ParsedToken(token, claims), RequestAttributes.SCOPE_REQUEST);
         }
+        return claims;
+    }
+
+    /**
+     * Email (doctor/patient) or username (admin) from the token, or null if invalid.
+     */
+    public String getEmailFromToken(String token) {
+        return extractIdentifier(token);
+    }
+
+    /**
+     * User id carried by the token, or null if invalid or issued without one.
+     */
+    public Long getUserIdFromToken(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims == null ? null : claims.getUserId();
+    }
+
+    /**
+     * Role carried by the token ("admin", "doctor", "patient"), or null.
+     */
+    public String getRoleFromToken(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims == null ? null : claims.getRole();
     }
 
     // ------------------------------------------------------------
@@ -91,20 +180,49 @@ public class TokenService {
      */
     public boolean validateToken(String token, String userType) {
         try {
-            String identifier = extractIdentifier(token);
-            if (identifier == null) return false;
+            String role = userType.toLowerCase();
+            String key = role + ":" + hash(token);
 
-            return switch (userType.toLowerCase()) {
+            // Repeat calls from the same session are answered from memory
+            VerifiedToken cached = verifiedTokens.get(key);
+            if (cached != null) {
+                if (cached.expiresAt() > System.currentTimeMillis()) return true;
+                verifiedTokens.remove(key);
+            }
+
+            TokenClaims claims = parseToken(token);
+            if (claims == null || claims.getSubject() == null) return false;
+            String identifier = claims.getSubject();
+
+            boolean exists = switch (role) {
                 case "admin" -> adminRepository.findByUsername(identifier) != null;
-                case "doctor" -> doctorRepository.findByEmail(identifier) != null;
-                case "patient" -> patientRepository.findByEmail(identifier) != null;
+                case "doctor" -> directoryCache.doctorByEmail(identifier) != null;
+                case "patient" -> directoryCache.patientByEmail(identifier) != null;
                 default -> false;
             };
+
+            if (exists && claims.getExpiration() != null) {
+                verifiedTokens.put(key, new VerifiedToken(identifier,
+                        Math.min(claims.getExpiration().getTime(), System.currentTimeMillis() + VERIFIED_TOKEN_TTL_MS)));
+            }
+            return exists;
         } catch (Exception e) {
             return false;
         }
     }
 
+    // ------------------------------------------------------------
+    // evictUser
+    // ------------------------------------------------------------
+    /**
+     * Forgets every cached token issued to the given identifier.
+     * Call when a user is deleted, changes email or changes role.
+     */
+    public void evictUser(String identifier) {
+        if (identifier == null) return;
+        verifiedTokens.removeIf((key, v) -> identifier.equals(v.identifier()));
+    }
+
     // ------------------------------------------------------------
     // getSigningKey
     // ------------------------------------------------------------
@@ -114,4 +232,16 @@ public class TokenService {
     public SecretKey getSigningKey() {
         return signingKey;
     }
+
+    // ------------------------------------------------------------
+    // helpers
+    // ------------------------------------------------------------
+    private static String hash(String token) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private record VerifiedToken(String identifier, long expiresAt) { }
+
+    private record ParsedToken(String token, TokenClaims claims) { }
 }
@@ -0,0 +1,63 @@
+-- V1: constraints and indexes for the access patterns of the repositories (MySQL).
+-- Packaged under classpath:db/migration; the flat source layout keeps it next to the entities.
+--
+-- The same indexes are declared on the entities (@Table indexes / unique constraints), and a
+-- database may already have some of them from Hibernate's schema update. Every index is
+-- therefore created through flyway_create_index, which skips indexes that already exist with
+-- the right uniqueness and rebuilds ones that exist as the wrong kind (e.g. a non-unique email
+-- index left by an older mapping).
+--
+-- The UNIQUE indexes fail if the table already holds duplicates; clean those up first.
+-- The derived search columns of doctor and their indexes are added in V2.
+
+DROP PROCEDURE IF EXISTS flyway_create_index;
+
+DELIMITER //
+CREATE PROCEDURE flyway_create_index(IN tbl VARCHAR(64), IN idx VARCHAR(64), IN is_unique TINYINT,
+                                     IN ddl VARCHAR(1024))
+BEGIN
+    -- information_schema.statistics.non_unique is 1 for plain indexes, 0 for unique ones,
+    -- so non_unique = is_unique means the index exists as the wrong kind
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx
+                 AND non_unique = is_unique) THEN
+        SET @flyway_ddl = CONCAT('DROP INDEX ', idx, ' ON ', tbl);
+        PREPARE stmt FROM @flyway_ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx) THEN
+        SET @flyway_ddl = ddl;
+        PREPARE stmt FROM @flyway_ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- One appointment per doctor and time; booked-slot loads, the agenda and the booking
+-- pre-check all seek on it
+CALL flyway_create_index('appointment', 'uk_appointments_doctor_time', 1,
+    'CREATE UNIQUE INDEX uk_appointments_doctor_time ON appointment (doctor_id, appointment_time)');
+
+-- Patient appointment lists by status, ordered by time (dashboard upcoming / past, filters)
+CALL flyway_create_index('appointment', 'idx_appointment_patient_status_time', 0,
+    'CREATE INDEX idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time)');
+
+-- Patient appointment lists ordered by time
+CALL flyway_create_index('appointment', 'idx_appointment_patient_time', 0,
+    'CREATE INDEX idx_appointment_patient_time ON appointment (patient_id, appointment_time)');
+
+-- Login, token validation and duplicate checks; emails and usernames identify an account
+CALL flyway_create_index('doctor', 'idx_doctor_email', 1,
+    'CREATE UNIQUE INDEX idx_doctor_email ON doctor (email)');
+CALL flyway_create_index('patient', 'idx_patient_email', 1,
+    'CREATE UNIQUE INDEX idx_patient_email ON patient (email)');
+CALL flyway_create_index('patient', 'idx_patient_phone', 0,
+    'CREATE INDEX idx_patient_phone ON patient (phone)');
+CALL flyway_create_index('admin', 'idx_admin_username', 1,
+    'CREATE UNIQUE INDEX idx_admin_username ON admin (username)');
+
+DROP PROCEDURE flyway_create_index;
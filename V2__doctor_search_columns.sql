@@ -0,0 +1,83 @@
+-- V2: derived search columns of doctor, their indexes and doctor_slot_minutes (MySQL),
+-- with a backfill of every existing doctor.
+--
+-- Mirrors Doctor.deriveSearchColumns: lower-cased, trimmed name / speciality, the "HH:mm"
+-- entries of doctor_available_times as minutes of the day, and has_am / has_pm (any slot
+-- before noon / at or after noon). Unparseable slots are skipped, as in the entity.
+-- Safe to run on a schema where Hibernate already added some of these objects.
+
+DROP PROCEDURE IF EXISTS flyway_add_column;
+DROP PROCEDURE IF EXISTS flyway_create_index;
+
+DELIMITER //
+CREATE PROCEDURE flyway_add_column(IN tbl VARCHAR(64), IN col VARCHAR(64), IN ddl VARCHAR(1024))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND column_name = col) THEN
+        SET @flyway_ddl = ddl;
+        PREPARE stmt FROM @flyway_ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+
+CREATE PROCEDURE flyway_create_index(IN tbl VARCHAR(64), IN idx VARCHAR(64), IN ddl VARCHAR(1024))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx) THEN
+        SET @flyway_ddl = ddl;
+        PREPARE stmt FROM @flyway_ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- ---- columns ----
+CALL flyway_add_column('doctor', 'has_am',
+    'ALTER TABLE doctor ADD COLUMN has_am BIT(1) NOT NULL DEFAULT 0');
+CALL flyway_add_column('doctor', 'has_pm',
+    'ALTER TABLE doctor ADD COLUMN has_pm BIT(1) NOT NULL DEFAULT 0');
+CALL flyway_add_column('doctor', 'name_normalized',
+    'ALTER TABLE doctor ADD COLUMN name_normalized VARCHAR(255)');
+CALL flyway_add_column('doctor', 'specialty_normalized',
+    'ALTER TABLE doctor ADD COLUMN specialty_normalized VARCHAR(255)');
+
+CREATE TABLE IF NOT EXISTS doctor_slot_minutes (
+    doctor_id   BIGINT NOT NULL,
+    slot_minute INT    NOT NULL,
+    PRIMARY KEY (doctor_id, slot_minute),
+    CONSTRAINT fk_doctor_slot_minutes_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+);
+
+-- ---- backfill ----
+UPDATE doctor SET name_normalized = LOWER(TRIM(name)) WHERE name IS NOT NULL;
+UPDATE doctor SET specialty_normalized = LOWER(TRIM(speciality)) WHERE speciality IS NOT NULL;
+
+-- Only strict "HH:mm" values, the same ones LocalTime.parse accepts in the entity
+INSERT IGNORE INTO doctor_slot_minutes (doctor_id, slot_minute)
+SELECT doctor_id, CAST(SUBSTRING(slot, 1, 2) AS UNSIGNED) * 60 + CAST(SUBSTRING(slot, 4, 2) AS UNSIGNED)
+FROM (SELECT doctor_id, TRIM(available_times) AS slot FROM doctor_available_times) t
+WHERE slot REGEXP '^([01][0-9]|2[0-3]):[0-5][0-9]$';
+
+UPDATE doctor d
+SET has_am = EXISTS (SELECT 1 FROM doctor_slot_minutes m WHERE m.doctor_id = d.id AND m.slot_minute < 720),
+    has_pm = EXISTS (SELECT 1 FROM doctor_slot_minutes m WHERE m.doctor_id = d.id AND m.slot_minute >= 720);
+
+-- ---- indexes ----
+-- AM / PM directory filters
+CALL flyway_create_index('doctor', 'idx_doctor_has_am',
+    'CREATE INDEX idx_doctor_has_am ON doctor (has_am)');
+CALL flyway_create_index('doctor', 'idx_doctor_has_pm',
+    'CREATE INDEX idx_doctor_has_pm ON doctor (has_pm)');
+
+-- Name filter fallback (see DoctorSpecifications.nameContains)
+CALL flyway_create_index('doctor', 'idx_doctor_name_normalized',
+    'CREATE INDEX idx_doctor_name_normalized ON doctor (name_normalized)');
+
+-- Specialty filter, optionally combined with AM / PM
+CALL flyway_create_index('doctor', 'idx_doctor_specialty_half',
+    'CREATE INDEX idx_doctor_specialty_half ON doctor (specialty_normalized, has_am, has_pm)');
+
+DROP PROCEDURE flyway_add_column;
+DROP PROCEDURE flyway_create_index;
@@ -0,0 +1,58 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in virtual-thread execution mode (requires JDK 21):
+ *
+ *   app.virtual-threads.enabled=true
+ *
+ * - Tomcat runs every request on its own virtual thread, so threads blocked on
+ *   JPA / Mongo I/O no longer exhaust a fixed worker pool.
+ * - @Async / streaming response work runs on virtual threads as well.
+ * - Concurrency is bounded by the Hikari connection limit instead of a thread count:
+ *   at most maximum-pool-size x requests-per-connection requests are admitted at once.
+ * - Virtual threads pinned to their carrier (blocking inside synchronized) are reported.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return handler -> handler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConnectionBoundedAdmissionFilter> connectionBoundedAdmissionFilter(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConnections,
+            @Value("${app.virtual-threads.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${app.virtual-threads.admission-timeout-ms:2000}") long admissionTimeoutMs) {
+        FilterRegistrationBean<ConnectionBoundedAdmissionFilter> bean = new FilterRegistrationBean<>(
+                new ConnectionBoundedAdmissionFilter(maxConnections * requestsPerConnection, admissionTimeoutMs));
+        bean.addUrlPatterns("/*");
+        return bean;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry registry,
+                                                   @Value("${app.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        return new PinnedThreadMonitor(registry, thresholdMs);
+    }
+}
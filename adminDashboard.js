@@ -4,7 +4,7 @@
 // Adjust import paths if your project structure differs.
 
 import { openModal } from "./components/modals.js";
-import { getDoctors, filterDoctors, saveDoctor } from "./services/doctorServices.js";
+import { getDoctors, filterDoctors, saveDoctor, importDoctors, exportDoctors } from "./services/doctorServices.js";
 import { createDoctorCard } from "./components/doctorCard.js";
 
 // -----------------------------
@@ -29,6 +29,12 @@ const els = {
   get addDoctorForm() {
     return document.getElementById("addDoctorForm");
   },
+  get importDoctorsFile() {
+    return document.getElementById("importDoctorsFile"); // optional <input type="file">
+  },
+  get exportDoctorsBtn() {
+    return document.getElementById("exportDoctorsBtn"); // optional
+  },
   get statusBar() {
     return document.getElementById("statusBar"); // optional helper area for messages
   },
@@ -62,6 +68,14 @@ const els = {
     });
   }
 
+  // Bulk import / export (only if the page provides the controls)
+  if (els.importDoctorsFile) {
+    els.importDoctorsFile.addEventListener("change", adminImportDoctors);
+  }
+  if (els.exportDoctorsBtn) {
+    els.exportDoctorsBtn.addEventListener("click", adminExportDoctors);
+  }
+
   // Load doctors on page load
   window.addEventListener("DOMContentLoaded", () => {
     loadDoctorCards();
@@ -178,6 +192,56 @@ async function adminAddDoctor() {
   }
 }
 
+// -----------------------------
+// Bulk Import / Export Flow
+// -----------------------------
+async function adminImportDoctors() {
+  const token = getAdminToken();
+  const file = els.importDoctorsFile?.files?.[0];
+  if (!token || !file) return;
+
+  setStatus("Importing doctors…");
+  const res = await importDoctors(file, token);
+  els.importDoctorsFile.value = "";
+
+  if (!res.success) {
+    alert(res.message || "Import failed.");
+    clearStatus();
+    return;
+  }
+
+  toast(`Imported ${res.imported} doctors, ${res.failed} rows failed.`);
+  if (res.errors.length > 0) {
+    console.warn("Doctor import row errors:", res.errors);
+    setStatus(`First error: row ${res.errors[0].row} – ${res.errors[0].message}`, true);
+  } else {
+    clearStatus();
+  }
+  await loadDoctorCards();
+}
+
+async function adminExportDoctors() {
+  const token = getAdminToken();
+  if (!token) {
+    alert("Missing or invalid admin session. Please log in again.");
+    return;
+  }
+
+  setStatus("Exporting doctors…");
+  const blob = await exportDoctors(token, "csv");
+  clearStatus();
+  if (!blob) {
+    alert("Export failed.");
+    return;
+  }
+
+  const link = document.createElement("a");
+  link.href = URL.createObjectURL(blob);
+  link.download = "doctors.csv";
+  link.click();
+  URL.revokeObjectURL(link.href);
+}
+
 // -----------------------------
 // Helpers
 // -----------------------------
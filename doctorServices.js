@@ -124,6 +124,109 @@ export async function filterDoctors(name, time, specialty) {
   return [];
 }
 
+/**
+ * Get free slots for many doctors over a date range in one request
+ * Example: /doctor/availability/{user}/{token}?doctorIds=1,2&from=2025-09-18&to=2025-09-24
+ * @param {string} user - role of the caller (e.g., "patient")
+ * @param {Array<number|string>} doctorIds
+ * @param {string} from - yyyy-MM-dd
+ * @param {string} [to] - yyyy-MM-dd (defaults to `from`)
+ * @param {string} token - auth token
+ * @returns {Promise<Object>} { doctorId: { date: ["HH:mm", ...] } } (empty object on failure)
+ */
+export async function getDoctorsAvailability(user, doctorIds, from, to, token) {
+  if (!Array.isArray(doctorIds) || doctorIds.length === 0 || !from) return {};
+
+  const params = new URLSearchParams({ doctorIds: doctorIds.join(","), from });
+  if (to) params.set("to", to);
+
+  const url = `${DOCTOR_API}/availability/${encodeURIComponent(user)}/${encodeURIComponent(token)}?${params}`;
+
+  const { success, data } = await requestJSON(url, { method: "GET" });
+  if (!success) return {};
+
+  return data?.availability || {};
+}
+
+/**
+ * Live free-slot updates for one doctor and day (server-sent events)
+ * Example: /doctor/availability/stream/{user}/{doctorId}/{date}/{token}
+ * The first event is a snapshot; later ones are single-slot deltas. The browser
+ * reconnects on its own (and receives a fresh snapshot) if the stream drops.
+ * @param {string} user - role of the caller (e.g., "patient")
+ * @param {number|string} doctorId
+ * @param {string} date - yyyy-MM-dd
+ * @param {string} token - auth token
+ * @param {{onSnapshot?: Function, onSlot?: Function}} handlers
+ *        onSnapshot({ doctorId, date, availability }), onSlot({ doctorId, date, time, state })
+ * @returns {EventSource} call .close() when the user leaves the booking view
+ */
+export function subscribeToSlots(user, doctorId, date, token, { onSnapshot, onSlot } = {}) {
+  const url = `${DOCTOR_API}/availability/stream/${encodeURIComponent(user)}/${encodeURIComponent(doctorId)}/${encodeURIComponent(date)}/${encodeURIComponent(token)}`;
+  const source = new EventSource(url);
+
+  const parse = (handler) => (e) => {
+    try {
+      if (handler) handler(JSON.parse(e.data));
+    } catch (err) {
+      console.error("[doctorServices] Bad slot event:", err);
+    }
+  };
+  source.addEventListener("snapshot", parse(onSnapshot));
+  source.addEventListener("slot", parse(onSlot));
+
+  return source;
+}
+
+/**
+ * Bulk import doctors from a CSV (header row) or NDJSON file
+ * Example: POST /doctor/import/{token}?format=csv
+ * @param {File|Blob} file - upload; sent as-is, the server reads it as a stream
+ * @param {string} token - admin auth token
+ * @returns {Promise<{success:boolean, message:string, imported:number, failed:number, errors:Array}>}
+ */
+export async function importDoctors(file, token) {
+  if (!file) {
+    return { success: false, message: "File is required.", imported: 0, failed: 0, errors: [] };
+  }
+
+  const format = /\.csv$/i.test(file.name || "") ? "csv" : "ndjson";
+  const url = `${DOCTOR_API}/import/${encodeURIComponent(token)}?format=${format}`;
+
+  const { success, message, data } = await requestJSON(url, {
+    method: "POST",
+    headers: { "Content-Type": format === "csv" ? "text/csv" : "application/x-ndjson" },
+    body: file,
+  });
+
+  return {
+    success,
+    message,
+    imported: data?.imported || 0,
+    failed: data?.failed || 0,
+    errors: data?.errors || [],
+  };
+}
+
+/**
+ * Download every doctor as NDJSON or CSV
+ * Example: GET /doctor/export/{token}?format=csv
+ * @param {string} token - admin auth token
+ * @param {"ndjson"|"csv"} [format]
+ * @returns {Promise<Blob|null>} file contents (null on failure)
+ */
+export async function exportDoctors(token, format = "ndjson") {
+  try {
+    const url = `${DOCTOR_API}/export/${encodeURIComponent(token)}?format=${encodeURIComponent(format)}`;
+    const res = await fetch(url, { method: "GET" });
+    if (!res.ok) return null;
+    return await res.blob();
+  } catch (err) {
+    console.error("[doctorServices] Export failed:", err);
+    return null;
+  }
+}
+
 // ── Notes ─────────────────────────────────────────────────────────────────────
 // • Keep token management (e.g., reading from localStorage) in UI/controller code.
 // • This service layer focuses purely on communication with the backend.